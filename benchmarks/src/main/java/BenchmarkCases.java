@@ -0,0 +1,282 @@
+import benchmarks.Case;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// the operations the JMH benchmarks in the benchmarks package time, kept in the unnamed package next to the game's classes
+public class BenchmarkCases
+{
+    // sprites looked up by a run of iconLookup, matches its @OperationsPerInvocation
+    public static final int LOOKUPS = 1000;
+
+    // a case on a board of a given size and mine density
+    private abstract static class BoardCase implements Case
+    {
+        int size;
+        double density;
+
+        @Override
+        public void setup(int size, double density)
+        {
+            this.size = size;
+            this.density = density;
+        }
+
+        int mines() {
+            return (int) (size * size * density);
+        }
+    }
+
+    public static Case create(String name)
+    {
+        switch (name)
+        {
+            case "construct": return new Construct();
+            case "placeMines": return new PlaceMines();
+            case "calculateMineCounts": return new CalculateMineCounts();
+            case "cascade": return new Cascade();
+            case "winCheck": return new WinCheck();
+            case "restart": return new Restart();
+            case "load": return new Load();
+            case "paint24": return new Paint(24);
+            case "paint4": return new Paint(4);
+            case "iconScale": return new IconScale();
+            case "iconLookup": return new IconLookup();
+            default: throw new IllegalArgumentException("No benchmark case " + name);
+        }
+    }
+
+    // allocating an empty board
+    private static class Construct extends BoardCase
+    {
+        public long run() {
+            return new MinesweeperBoard(size, mines()).getRows();
+        }
+    }
+
+    // placing the mines on a new board, which includes counting the numbers around them
+    private static class PlaceMines extends BoardCase
+    {
+        MinesweeperBoard board;
+        long seed;
+
+        @Override
+        public void prepare() {
+            board = new MinesweeperBoard(size, mines());
+        }
+
+        public long run()
+        {
+            board.placeMines(size / 2, size / 2, seed++, MinesweeperBoard.SafeZone.AREA);
+            return board.getMineCount(0, 0);
+        }
+    }
+
+    // counting the numbers again around the mines of one board
+    private static class CalculateMineCounts extends BoardCase
+    {
+        MinesweeperBoard board;
+
+        @Override
+        public void setup(int size, double density)
+        {
+            super.setup(size, density);
+            board = new MinesweeperBoard(size, mines());
+            board.placeMines(size / 2, size / 2, 1, MinesweeperBoard.SafeZone.AREA);
+        }
+
+        @Override
+        public void prepare() {
+            board.clearMineCounts();
+        }
+
+        public long run()
+        {
+            board.calculateMineCounts();
+            return board.getMineCount(0, 0);
+        }
+    }
+
+    // the opening of a first click, which is always an empty tile thanks to the safe area
+    // the board is cleared and mined again in place before every run
+    private static class Cascade extends BoardCase
+    {
+        MinesweeperBoard board;
+        long seed;
+
+        @Override
+        public void prepare()
+        {
+            if (board == null)
+                board = new MinesweeperBoard(size, mines());
+            else
+                board.reset(mines());
+            board.placeMines(size / 2, size / 2, seed++, MinesweeperBoard.SafeZone.AREA);
+        }
+
+        public long run() {
+            return board.reveal(size / 2, size / 2);
+        }
+    }
+
+    // the win check done after every move, on a board opened up in the middle
+    private static class WinCheck extends BoardCase
+    {
+        MinesweeperBoard board;
+
+        @Override
+        public void setup(int size, double density)
+        {
+            super.setup(size, density);
+            board = new MinesweeperBoard(size, mines());
+            board.placeMines(size / 2, size / 2, 1, MinesweeperBoard.SafeZone.AREA);
+            board.reveal(size / 2, size / 2);
+        }
+
+        public long run() {
+            return board.isCleared() ? 1 : 0;
+        }
+    }
+
+    // starting over after a game, the board and the solver are cleared in place the way the window does on restart
+    private static class Restart extends BoardCase
+    {
+        MinesweeperGame game;
+        MinesweeperSolver solver;
+
+        @Override
+        public void setup(int size, double density)
+        {
+            super.setup(size, density);
+            game = new MinesweeperGame(size, mines());
+            solver = new MinesweeperSolver(game.getBoard());
+        }
+
+        @Override
+        public void prepare()
+        {
+            game.reveal(size / 2, size / 2);
+            solver.update();
+        }
+
+        public long run()
+        {
+            game.newGame(size, size, mines());
+            solver.reset();
+            return game.getFlagsAvailable();
+        }
+    }
+
+    // resuming a saved game that is partly played
+    private static class Load extends BoardCase
+    {
+        Path file;
+
+        @Override
+        public void setup(int size, double density)
+        {
+            super.setup(size, density);
+            try {
+                MinesweeperGame game = new MinesweeperGame(size, mines());
+                game.reveal(size / 2, size / 2);
+                file = Files.createTempFile("minesweeper", ".sav");
+                file.toFile().deleteOnExit();
+                GameSnapshot.save(file, game, 0);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        public long run()
+        {
+            try {
+                return GameSnapshot.load(file).getGame().getBoard().getRevealedSafeCells();
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // painting a 1280x800 window over the middle of a board opened up in the middle
+    private static class Paint extends BoardCase
+    {
+        final int tileSize;
+        MinesweeperBoard board;
+        BoardCanvas canvas;
+        BufferedImage window = new BufferedImage(1280, 800, BufferedImage.TYPE_INT_RGB);
+
+        Paint(int tileSize) {
+            this.tileSize = tileSize;
+        }
+
+        @Override
+        public void setup(int size, double density)
+        {
+            super.setup(size, density);
+            MinesweeperGame game = new MinesweeperGame(size, mines());
+            game.reveal(size / 2, size / 2);
+            board = game.getBoard();
+            canvas = new BoardCanvas(size, size, new SpriteCache(), (row, column) -> {
+                if (!board.isRevealed(row, column))
+                    return SpriteCache.UNREVEALED;
+                int count = board.getMineCount(row, column);
+                return count == 0 ? SpriteCache.REVEALED : SpriteCache.NUMBER + count - 1;
+            }, new BoardCanvas.CellListener()
+            {
+                public void cellClicked(int row, int column) {
+                }
+
+                public void cellFlagged(int row, int column) {
+                }
+            });
+            canvas.setTileSize(tileSize);
+            canvas.setSize(canvas.getPreferredSize());
+        }
+
+        public long run()
+        {
+            // the window is over the middle of the board, or all of it if the board is smaller
+            Graphics2D graphics = window.createGraphics();
+            int x = Math.max(0, (canvas.getWidth() - window.getWidth()) / 2);
+            int y = Math.max(0, (canvas.getHeight() - window.getHeight()) / 2);
+            graphics.translate(-x, -y);
+            graphics.setClip(x, y, window.getWidth(), window.getHeight());
+            canvas.paint(graphics);
+            graphics.dispose();
+            return window.getRGB(0, 0);
+        }
+    }
+
+    // scaling a tile sprite to a new tile size, alternating between two sizes so every run has to rescale
+    private static class IconScale implements Case
+    {
+        SpriteCache sprites = new SpriteCache();
+        int tileSize = 40;
+
+        public long run()
+        {
+            tileSize = tileSize == 40 ? 41 : 40;
+            return sprites.get(SpriteCache.UNREVEALED, tileSize, tileSize).getIconWidth();
+        }
+    }
+
+    // looking up already scaled sprites
+    private static class IconLookup implements Case
+    {
+        SpriteCache sprites = new SpriteCache();
+
+        public long run()
+        {
+            long width = 0;
+            for (int i = 0; i < LOOKUPS; i++)
+                width += sprites.get(SpriteCache.NUMBER + (i & 7), 40, 40).getIconWidth();
+            return width;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the board and reveal hot paths over every board size and mine density
+// e.g. "java -jar benchmarks/target/benchmarks.jar BoardBenchmark.cascade -p size=1000 -prof gc"
+// only runs the cascade on 1000x1000 boards, with the allocation rate from the GC profiler
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark
+{
+    // a case on a board of every size and density, set up once
+    @State(Scope.Thread)
+    public abstract static class Board
+    {
+        @Param({"10", "20", "100", "1000", "4000"})
+        public int size;
+
+        @Param({"0.05", "0.15", "0.25"})
+        public double density;
+
+        Case benchmark;
+
+        abstract String name();
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            benchmark = Case.create(name());
+            benchmark.setup(size, density);
+        }
+    }
+
+    // a case that uses up its board, which is set up again before every run
+    // on the smallest boards the setup costs about as much as the run, so those times are rough,
+    // and the GC profiler counts what the setup allocates along with the run
+    public abstract static class FreshBoard extends Board
+    {
+        @Setup(Level.Invocation)
+        public void prepare() {
+            benchmark.prepare();
+        }
+    }
+
+    public static class Construct extends Board {
+        String name() {
+            return "construct";
+        }
+    }
+
+    public static class PlaceMines extends FreshBoard {
+        String name() {
+            return "placeMines";
+        }
+    }
+
+    public static class CalculateMineCounts extends FreshBoard {
+        String name() {
+            return "calculateMineCounts";
+        }
+    }
+
+    public static class Cascade extends FreshBoard {
+        String name() {
+            return "cascade";
+        }
+    }
+
+    public static class WinCheck extends Board {
+        String name() {
+            return "winCheck";
+        }
+    }
+
+    public static class Restart extends FreshBoard {
+        String name() {
+            return "restart";
+        }
+    }
+
+    public static class Load extends Board {
+        String name() {
+            return "load";
+        }
+    }
+
+    // allocating an empty board
+    @Benchmark
+    public long construct(Construct state) {
+        return state.benchmark.run();
+    }
+
+    // placing the mines, which includes counting the numbers around them and indexing the openings
+    @Benchmark
+    public long placeMines(PlaceMines state) {
+        return state.benchmark.run();
+    }
+
+    // counting the numbers around mines already placed
+    @Benchmark
+    public long calculateMineCounts(CalculateMineCounts state) {
+        return state.benchmark.run();
+    }
+
+    // the opening of a first click, which is always an empty tile thanks to the safe area
+    @Benchmark
+    public long cascade(Cascade state) {
+        return state.benchmark.run();
+    }
+
+    // the win check done after every move
+    @Benchmark
+    public long winCheck(WinCheck state) {
+        return state.benchmark.run();
+    }
+
+    // starting over after a game, the board and the solver are cleared in place the way the window does on restart
+    @Benchmark
+    public long restart(Restart state) {
+        return state.benchmark.run();
+    }
+
+    // resuming a saved game that is partly played
+    @Benchmark
+    public long load(Load state) {
+        return state.benchmark.run();
+    }
+}
@@ -0,0 +1,29 @@
+package benchmarks;
+
+// one benchmarked operation of the game
+// the game's classes are all in the unnamed package, which JMH can't generate benchmarks in and a named package can't import,
+// so the JMH benchmarks in this package only time a Case, and the cases themselves are in BenchmarkCases, in the unnamed package
+public interface Case
+{
+    // called once before the case is measured, with the board side and the share of tiles that are mines
+    default void setup(int size, double density) {
+    }
+
+    // called before every run of cases that use up their board, not measured
+    default void prepare() {
+    }
+
+    // the measured operation, returns something from its result so the work can't be thrown away
+    long run();
+
+    // the case with the given name from BenchmarkCases
+    static Case create(String name)
+    {
+        try {
+            return (Case) Class.forName("BenchmarkCases").getMethod("create", String.class).invoke(null, name);
+        }
+        catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No benchmark case " + name, ex);
+        }
+    }
+}
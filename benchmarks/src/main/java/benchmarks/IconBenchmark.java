@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the tile sprites: scaling one to a new tile size, and looking up one already scaled
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class IconBenchmark
+{
+    @State(Scope.Thread)
+    public static class Scale
+    {
+        Case benchmark = Case.create("iconScale");
+    }
+
+    @State(Scope.Thread)
+    public static class Lookup
+    {
+        Case benchmark = Case.create("iconLookup");
+    }
+
+    // what a zoom costs for every kind of sprite on screen
+    @Benchmark
+    public long iconScale(Scale state) {
+        return state.benchmark.run();
+    }
+
+    // what every tile update costs, a run looks up 1000 sprites (BenchmarkCases.LOOKUPS)
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public long iconLookup(Lookup state) {
+        return state.benchmark.run();
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// painting a full window of the board, which should cost the same whatever the size of the board
+// once as icons and once zoomed out to plain colours, on a board opened up in the middle
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PaintBenchmark
+{
+    @Param({"10", "20", "100", "1000", "4000"})
+    public int size;
+
+    // 24 pixel tiles are drawn as icons, 4 pixel ones as plain colours
+    @Param({"24", "4"})
+    public int tileSize;
+
+    private Case benchmark;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        benchmark = Case.create("paint" + tileSize);
+        benchmark.setup(size, 0.15);
+    }
+
+    @Benchmark
+    public long paint() {
+        return benchmark.run();
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// finds the game's icons and sounds, and the threads that decode them
+// assets are looked up on the classpath first, so they can be packaged with the classes (e.g. java -cp source:resources MinesweeperGUI),
+// then in the resources folder next to the classes and around the working directory, so the game starts from any folder
+// the assets and which of them are loaded lazily are listed in assets.manifest, at the root of the resources folder
+public class Assets
+{
+    private static final String MANIFEST = "assets.manifest";
+
+    // decodes assets in parallel with the rest of startup, one thread per core
+    private static final AtomicInteger loaderThreads = new AtomicInteger();
+    public static final ExecutorService LOADER = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "asset-loader-" + loaderThreads.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // folders searched when an asset isn't on the classpath
+    private static final List<Path> folders = new ArrayList<>();
+    // every asset in the manifest, in order, and whether it is loaded lazily
+    private static final Map<String, Boolean> manifest = new LinkedHashMap<>();
+    // assets already reported missing, so each one is only reported once
+    private static final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    static
+    {
+        // the resources folder is next to the folder the classes are in
+        try {
+            Path classes = Paths.get(Assets.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            folders.add(classes.resolveSibling("resources"));
+        }
+        catch (URISyntaxException | SecurityException | NullPointerException ex) {
+            // no code source, e.g. in a custom class loader, the working directory is all there is
+        }
+        folders.add(Paths.get("resources"));
+        folders.add(Paths.get("../resources"));
+        readManifest();
+    }
+
+    private static void readManifest()
+    {
+        URL url = find(MANIFEST);
+        if (url == null)
+        {
+            missing(MANIFEST, "not found, no sounds will play");
+            return;
+        }
+        try (InputStream in = url.openStream();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            for (String line; (line = reader.readLine()) != null; )
+            {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] fields = line.split("\\s+");
+                manifest.put(fields[0], fields.length > 1 && fields[1].equals("lazy"));
+            }
+        }
+        catch (IOException ex) {
+            missing(MANIFEST, ex.getMessage());
+        }
+    }
+
+    // every asset in the manifest whose path starts with the prefix, e.g. "audio/"
+    public static List<String> list(String prefix)
+    {
+        List<String> paths = new ArrayList<>();
+        for (String path : manifest.keySet())
+            if (path.startsWith(prefix))
+                paths.add(path);
+        return paths;
+    }
+
+    // true if the asset should only be loaded when it is first needed
+    public static boolean isLazy(String path) {
+        return manifest.getOrDefault(path, false);
+    }
+
+    // where the asset is, or null if it can't be found anywhere
+    public static URL find(String path)
+    {
+        URL url = Assets.class.getResource("/" + path);
+        if (url != null)
+            return url;
+        for (Path folder : folders)
+        {
+            Path file = folder.resolve(path);
+            if (Files.isRegularFile(file))
+            {
+                try {
+                    return file.toUri().toURL();
+                }
+                catch (MalformedURLException ex) {
+                    // can't happen for a file that exists, try the next folder
+                }
+            }
+        }
+        return null;
+    }
+
+    // report an asset that couldn't be loaded with a single line, the game carries on without it
+    public static void missing(String path, String reason)
+    {
+        if (reported.add(path))
+            System.err.println("Minesweeper: " + path + " " + (reason != null ? reason : "could not be loaded"));
+    }
+}
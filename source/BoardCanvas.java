@@ -0,0 +1,396 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// draws the board inside a scroll pane, any size of board from a few tiles to millions
+// nothing is kept per tile: the sprite of a tile is asked for only when that tile is on screen and being painted,
+// so a paint costs the same whether the board is 10x10 or 10000x10000
+// ctrl + mouse wheel zooms around the mouse, zoomed far out the tiles are drawn as plain colours instead of icons
+@SuppressWarnings("serial")
+public class BoardCanvas extends JComponent implements Scrollable
+{
+    // gets told which tile the player clicked
+    // left click reveals a tile, right click places or removes a flag
+    public interface CellListener
+    {
+        void cellClicked(int row, int column);
+        void cellFlagged(int row, int column);
+    }
+
+    // tells the canvas what each tile shows, one of the SpriteCache ids
+    public interface TileSource
+    {
+        int getSprite(int row, int column);
+    }
+
+    // smallest and biggest tile size in pixels
+    public static final int MIN_TILE = 1;
+    public static final int MAX_TILE = 96;
+    // tiles smaller than this are drawn as plain colours, scaled icons would only be a blur at that size
+    private static final int DETAIL_TILE = 12;
+    // a new board is zoomed so it fits into about this many pixels, but never with tiles bigger than DEFAULT_TILE
+    private static final int FIT_PIXELS = 500;
+    private static final int DEFAULT_TILE = 50;
+    // each zoom step grows or shrinks the tiles by this much
+    private static final double ZOOM_STEP = 1.25;
+
+    private int rows;
+    private int columns;
+    private int tileSize;
+    private SpriteCache sprites;
+    private TileSource source;
+    private CellListener listener;
+
+    // zoomed out the visible tiles are written one pixel each into this image, which is then drawn scaled up
+    // kept between paints and only replaced when the view needs a bigger one
+    private BufferedImage colourMap;
+    // the colour of each sprite, 0 until it is first needed (a real colour is never 0, its alpha is always set)
+    private int[] colours = new int[SpriteCache.COUNT];
+
+    // the first paint is timed from the start of the program when metrics are on
+    private boolean painted;
+
+    // tile outlined as a hint, -1 if none
+    private long highlighted = -1;
+
+    // the tile the left mouse button went down on, a click only counts if it is released on the same tile
+    private int pressedRow = -1;
+    private int pressedColumn = -1;
+
+    // when metrics are on, the last click that hasn't been painted yet, so the time until its result shows can be measured
+    private long inputNanos;
+    private MinesweeperEvents.ClickToPaint clickEvent;
+
+    // default
+    public BoardCanvas(int rows, int columns, SpriteCache sprites, TileSource source, CellListener listener)
+    {
+        this.sprites = sprites;
+        this.source = source;
+        this.listener = listener;
+        setOpaque(true);
+        reset(rows, columns);
+
+        // one mouse listener for the whole board, the tile is worked out from the mouse position
+        addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent evt)
+            {
+                int row = rowAt(evt.getY());
+                int column = columnAt(evt.getX());
+                if (row < 0 || column < 0)
+                    return;
+
+                if (SwingUtilities.isRightMouseButton(evt))
+                {
+                    inputReceived();
+                    BoardCanvas.this.listener.cellFlagged(row, column);
+                }
+                else if (SwingUtilities.isLeftMouseButton(evt))
+                {
+                    pressedRow = row;
+                    pressedColumn = column;
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent evt)
+            {
+                if (!SwingUtilities.isLeftMouseButton(evt))
+                    return;
+
+                int row = rowAt(evt.getY());
+                int column = columnAt(evt.getX());
+                boolean sameTile = row == pressedRow && column == pressedColumn;
+                pressedRow = -1;
+                pressedColumn = -1;
+                if (sameTile && row >= 0 && column >= 0)
+                {
+                    inputReceived();
+                    BoardCanvas.this.listener.cellClicked(row, column);
+                }
+            }
+        });
+
+        // ctrl + wheel zooms, a plain wheel is handed on to the scroll pane so it still scrolls
+        addMouseWheelListener(evt -> {
+            if (evt.isControlDown())
+                zoom(evt.getWheelRotation() < 0 ? ZOOM_STEP : 1 / ZOOM_STEP, evt.getPoint());
+            else
+            {
+                Container pane = SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+                if (pane != null)
+                    pane.dispatchEvent(SwingUtilities.convertMouseEvent(this, evt, pane));
+            }
+        });
+    }
+
+    // start timing a click, the timing ends once the next paint is done
+    private void inputReceived()
+    {
+        if (!Metrics.ENABLED)
+            return;
+        inputNanos = System.nanoTime();
+        clickEvent = new MinesweeperEvents.ClickToPaint();
+        clickEvent.begin();
+    }
+
+    // show a new board of the given size with every tile as the source now says
+    // a board of another size is zoomed to fit, the same size keeps the zoom the player picked
+    public void reset(int rows, int columns)
+    {
+        if (this.rows != rows || this.columns != columns)
+        {
+            this.rows = rows;
+            this.columns = columns;
+            setTileSize(Math.max(MIN_TILE, Math.min(DEFAULT_TILE, FIT_PIXELS / Math.max(rows, columns))));
+        }
+        highlighted = -1;
+        repaint();
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    // zoom to the given tile size in pixels, kept between MIN_TILE and MAX_TILE
+    public void setTileSize(int tileSize)
+    {
+        this.tileSize = Math.max(MIN_TILE, Math.min(MAX_TILE, tileSize));
+        setPreferredSize(new Dimension(columns * this.tileSize, rows * this.tileSize));
+        revalidate();
+        repaint();
+    }
+
+    // zoom by the factor, keeping the point of the board under the given position (in canvas pixels) where it is
+    // so zooming with the wheel zooms in on whatever the mouse is pointing at
+    public void zoom(double factor, Point anchor)
+    {
+        int newSize = (int) Math.round(tileSize * factor);
+        // small tiles would round back to the same size, so always move at least one pixel
+        if (newSize == tileSize)
+            newSize += factor > 1 ? 1 : -1;
+        newSize = Math.max(MIN_TILE, Math.min(MAX_TILE, newSize));
+        if (newSize == tileSize)
+            return;
+
+        if (!(getParent() instanceof JViewport))
+        {
+            setTileSize(newSize);
+            return;
+        }
+        JViewport viewport = (JViewport) getParent();
+        Point view = viewport.getViewPosition();
+        // where the anchor is on the board, in tiles
+        double anchorColumn = (anchor.x - offsetX()) / (double) tileSize;
+        double anchorRow = (anchor.y - offsetY()) / (double) tileSize;
+
+        setTileSize(newSize);
+        // lay the scroll pane out now, so the new size is known before scrolling
+        viewport.getParent().validate();
+
+        int x = (int) Math.round(offsetX() + anchorColumn * tileSize) - (anchor.x - view.x);
+        int y = (int) Math.round(offsetY() + anchorRow * tileSize) - (anchor.y - view.y);
+        x = Math.max(0, Math.min(x, getWidth() - viewport.getWidth()));
+        y = Math.max(0, Math.min(y, getHeight() - viewport.getHeight()));
+        viewport.setViewPosition(new Point(x, y));
+    }
+
+    // zoom one step in or out around the middle of what is on screen, for the menu
+    public void zoomIn() {
+        zoom(ZOOM_STEP);
+    }
+
+    public void zoomOut() {
+        zoom(1 / ZOOM_STEP);
+    }
+
+    private void zoom(double factor)
+    {
+        Rectangle visible = getVisibleRect();
+        zoom(factor, new Point(visible.x + visible.width / 2, visible.y + visible.height / 2));
+    }
+
+    // the tile's sprite changed, only that tile gets repainted
+    public void repaintTile(int row, int column) {
+        repaint(offsetX() + column * tileSize, offsetY() + row * tileSize, tileSize, tileSize);
+    }
+
+    // every tile in the rectangle between the two tiles changed, e.g. after a cascade
+    public void repaintTiles(int firstRow, int firstColumn, int lastRow, int lastColumn)
+    {
+        repaint(offsetX() + firstColumn * tileSize, offsetY() + firstRow * tileSize,
+            (lastColumn - firstColumn + 1) * tileSize, (lastRow - firstRow + 1) * tileSize);
+    }
+
+    // outline a tile, e.g. to show a hint, and scroll it into view, or clear the outline with -1, -1
+    public void setHighlight(int row, int column)
+    {
+        if (highlighted >= 0)
+            repaintOutline((int) (highlighted / columns), (int) (highlighted % columns));
+        highlighted = row >= 0 ? (long) row * columns + column : -1;
+        if (highlighted >= 0)
+        {
+            repaintOutline(row, column);
+            scrollRectToVisible(new Rectangle(offsetX() + column * tileSize, offsetY() + row * tileSize, tileSize, tileSize));
+        }
+    }
+
+    // zoomed out the outline is drawn around the tile instead of inside it, so it also covers some of the neighbours
+    private void repaintOutline(int row, int column) {
+        repaint(offsetX() + column * tileSize - 4, offsetY() + row * tileSize - 4, tileSize + 8, tileSize + 8);
+    }
+
+    // a board smaller than the view is centered in it
+    private int offsetX() {
+        return Math.max(0, (getWidth() - tileSize * columns) / 2);
+    }
+
+    private int offsetY() {
+        return Math.max(0, (getHeight() - tileSize * rows) / 2);
+    }
+
+    // work out the row/column under a mouse position, -1 if it is outside the grid
+    private int rowAt(int y)
+    {
+        if (y < offsetY())
+            return -1;
+        int row = (y - offsetY()) / tileSize;
+        return row < rows ? row : -1;
+    }
+
+    private int columnAt(int x)
+    {
+        if (x < offsetX())
+            return -1;
+        int column = (x - offsetX()) / tileSize;
+        return column < columns ? column : -1;
+    }
+
+    // draw only the tiles that fall inside the area being repainted
+    // the scroll pane clips every paint to what is on screen, so no more tiles are drawn than fit in the window
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstRow = Math.max(0, (clip.y - offsetY()) / tileSize);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height - 1 - offsetY()) / tileSize);
+        int firstColumn = Math.max(0, (clip.x - offsetX()) / tileSize);
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width - 1 - offsetX()) / tileSize);
+
+        if (firstRow <= lastRow && firstColumn <= lastColumn)
+        {
+            if (tileSize >= DETAIL_TILE)
+                paintIcons(g, firstRow, lastRow, firstColumn, lastColumn);
+            else
+                paintColours(g, firstRow, lastRow, firstColumn, lastColumn);
+        }
+
+        if (Metrics.ENABLED)
+        {
+            if (!painted)
+            {
+                painted = true;
+                Metrics.firstFrame();
+            }
+            Metrics.FRAMES.increment();
+            if (clickEvent != null)
+            {
+                Metrics.CLICK_TO_PAINT.record(System.nanoTime() - inputNanos);
+                clickEvent.tiles = Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastColumn - firstColumn + 1);
+                clickEvent.commit();
+                clickEvent = null;
+            }
+        }
+
+        if (highlighted >= 0)
+        {
+            int x = offsetX() + (int) (highlighted % columns) * tileSize;
+            int y = offsetY() + (int) (highlighted / columns) * tileSize;
+            // inside the tile when it is big enough to hold the outline, around it when it isn't
+            int pad = tileSize >= DETAIL_TILE ? -1 : 3;
+            Graphics2D graphics = (Graphics2D) g.create();
+            graphics.setColor(Color.YELLOW);
+            graphics.setStroke(new BasicStroke(tileSize >= DETAIL_TILE ? 3 : 2));
+            graphics.drawRect(x - pad, y - pad, tileSize + 2 * pad - 1, tileSize + 2 * pad - 1);
+            graphics.dispose();
+        }
+    }
+
+    // every tile as its icon, scaled once per zoom level by the sprite cache
+    private void paintIcons(Graphics g, int firstRow, int lastRow, int firstColumn, int lastColumn)
+    {
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                Image image = sprites.get(source.getSprite(row, column), tileSize, tileSize).getImage();
+                g.drawImage(image, offsetX() + column * tileSize, offsetY() + row * tileSize, null);
+            }
+        }
+    }
+
+    // every tile as one pixel of its sprite's colour, then the whole block is drawn scaled up in one go
+    private void paintColours(Graphics g, int firstRow, int lastRow, int firstColumn, int lastColumn)
+    {
+        int width = lastColumn - firstColumn + 1;
+        int height = lastRow - firstRow + 1;
+        if (colourMap == null || colourMap.getWidth() < width || colourMap.getHeight() < height)
+            colourMap = new BufferedImage(Math.max(width, colourMap == null ? 0 : colourMap.getWidth()),
+                Math.max(height, colourMap == null ? 0 : colourMap.getHeight()), BufferedImage.TYPE_INT_RGB);
+
+        int[] pixels = ((DataBufferInt) colourMap.getRaster().getDataBuffer()).getData();
+        int stride = colourMap.getWidth();
+        for (int row = 0; row < height; row++)
+            for (int column = 0; column < width; column++)
+                pixels[row * stride + column] = colourOf(source.getSprite(firstRow + row, firstColumn + column));
+
+        int x = offsetX() + firstColumn * tileSize;
+        int y = offsetY() + firstRow * tileSize;
+        g.drawImage(colourMap, x, y, x + width * tileSize, y + height * tileSize, 0, 0, width, height, null);
+    }
+
+    private int colourOf(int sprite)
+    {
+        if (colours[sprite] == 0)
+            colours[sprite] = sprites.getColour(sprite).getRGB();
+        return colours[sprite];
+    }
+
+    // the scroll pane shows at most FIT_PIXELS each way to begin with, the window can be made bigger from there
+    @Override
+    public Dimension getPreferredScrollableViewportSize()
+    {
+        Dimension size = getPreferredSize();
+        return new Dimension(Math.min(size.width, FIT_PIXELS), Math.min(size.height, FIT_PIXELS));
+    }
+
+    // scrolling with the arrows moves one tile, clicking beside the thumb moves a screenful
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return tileSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height - tileSize : visibleRect.width - tileSize;
+    }
+
+    // a board narrower or shorter than the window is stretched to fill it, and centered in it by offsetX/offsetY
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,430 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// a board without edges for the infinite mode (see InfiniteCanvas), rows and columns can be any int (negative ones too)
+// the world is cut into square chunks that only exist once something looks at them
+// a chunk's mines come from the world seed and the chunk's position alone, so any chunk can be thrown away
+// and rebuilt later exactly the same, only the chunks the player has revealed or flagged something on have to be kept
+public class ChunkedBoard
+{
+    // chunks are 32x32 tiles
+    private static final int CHUNK_BITS = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+
+    // same tile byte layout as MinesweeperBoard: bits 0-3 the number, then mine, revealed and flagged
+    private static final int COUNT_MASK = 0x0F;
+    private static final int MINE = 0x10;
+    private static final int REVEALED = 0x20;
+    private static final int FLAGGED = 0x40;
+
+    // below this density empty tiles join up into openings that never end, so a click could try to reveal forever
+    public static final double MIN_DENSITY = 0.15;
+    // by default one reveal never goes past this many tiles, as a last line of defence against a runaway opening
+    // the empty tiles it didn't get to spread from are kept as the frontier, and revealFrontier carries on from them
+    private static final int MAX_REVEAL = 1 << 20;
+    // untouched chunks kept around after being generated (only for their mines), least recently used ones go first
+    private static final int DEFAULT_CACHE_CHUNKS = 256;
+
+    private long seed;
+    private int maxReveal = MAX_REVEAL;
+    // every chunk gets exactly this many mines (less the ones that would land next to the start)
+    private int minesPerChunk;
+
+    // a chunk is its tiles, stored row by row like MinesweeperBoard, plus whether the numbers have been worked out yet
+    private static class Chunk
+    {
+        byte[] cells = new byte[CHUNK_AREA];
+        boolean counted;
+    }
+
+    // chunks with something revealed or flagged on them, these hold the player's progress and are never dropped
+    private Map<Long, Chunk> explored = new HashMap<>();
+    // chunks that were only generated to look at their mines, e.g. the neighbours needed to number a chunk's border
+    private int cacheChunks = DEFAULT_CACHE_CHUNKS;
+    private LinkedHashMap<Long, Chunk> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+            return size() > cacheChunks;
+        }
+    };
+    // the explored chunk looked up last, tiles next to each other are almost always in the same chunk
+    private long lastKey = Long.MIN_VALUE;
+    private Chunk lastChunk;
+
+    // flood fill queue, doubling as the tiles the last reveal changed, stored as row, column pairs
+    private int[] changed = new int[128];
+    private int changedCount;
+    // revealed tiles a capped reveal didn't spread from yet, as row, column pairs
+    private int[] frontier = new int[0];
+    private int frontierCount;
+
+    private long revealedSafeCells;
+    private long flaggedCells;
+
+    // default
+    // the 3x3 around 0,0 never has a mine, so the game can always start by revealing 0,0
+    public ChunkedBoard(long seed, double density)
+    {
+        if (density < MIN_DENSITY || density > 1)
+            throw new IllegalArgumentException("Density " + density + " is outside " + MIN_DENSITY + "..1");
+        this.seed = seed;
+        minesPerChunk = (int) Math.round(density * CHUNK_AREA);
+    }
+
+    // reveals the tile and, if it has no adjacent mines, every connected empty tile and its numbered border
+    // returns how many tiles were revealed, the tiles themselves can be read with getChangedRow/getChangedColumn
+    public int reveal(int row, int column)
+    {
+        changedCount = 0;
+        fill(row, column);
+        return changedCount / 2;
+    }
+
+    // reveals every tile around the given one as if each was clicked (used for chording)
+    public int revealAround(int row, int column)
+    {
+        changedCount = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (newRow != row || newColumn != column)
+                    fill(newRow, newColumn);
+        return changedCount / 2;
+    }
+
+    // count the flags placed on the tiles around the given one
+    public int countAdjacentFlags(int row, int column)
+    {
+        int flags = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (isFlagged(newRow, newColumn))
+                    flags++;
+        return flags;
+    }
+
+    // set how many tiles one reveal may reveal before the rest is left to revealFrontier, e.g. to keep each one within a frame
+    public void setMaxReveal(int maxReveal) {
+        this.maxReveal = Math.max(1, maxReveal);
+    }
+
+    // whether a reveal stopped at its limit with empty tiles left to spread from
+    public boolean hasFrontier() {
+        return frontierCount > 0;
+    }
+
+    // carry on the reveals that were cut short, up to the same limit of new tiles, what is left after that stays the frontier
+    // returns how many tiles changed, like reveal; the frontier tiles spread from are among them again
+    public int revealFrontier()
+    {
+        if (changed.length < frontierCount)
+            changed = Arrays.copyOf(changed, Math.max(frontierCount, changed.length * 2));
+        System.arraycopy(frontier, 0, changed, 0, frontierCount);
+        changedCount = frontierCount;
+        frontierCount = 0;
+        spread(0);
+        return changedCount / 2;
+    }
+
+    // same flood fill as MinesweeperBoard, only every tile is found through its chunk
+    private void fill(int row, int column)
+    {
+        if ((state(row, column) & (REVEALED | FLAGGED)) != 0)
+            return;
+
+        int head = changedCount;
+        push(row, column);
+        spread(head);
+    }
+
+    // spread from the queued tiles from head on, until the limit of new tiles is reached
+    // the ones not spread from by then go to the frontier, so no revealed empty tile is left with hidden neighbours for good
+    private void spread(int head)
+    {
+        int limit = changedCount + 2 * maxReveal;
+        for (; head < changedCount; head += 2)
+        {
+            if (changedCount >= limit)
+            {
+                keep(head);
+                return;
+            }
+            int cellRow = changed[head];
+            int cellColumn = changed[head + 1];
+            if ((state(cellRow, cellColumn) & (MINE | COUNT_MASK)) != 0)
+                continue;
+
+            for (int newRow = cellRow - 1; newRow <= cellRow + 1; newRow++)
+                for (int newColumn = cellColumn - 1; newColumn <= cellColumn + 1; newColumn++)
+                    if ((state(newRow, newColumn) & (REVEALED | FLAGGED)) == 0)
+                        push(newRow, newColumn);
+        }
+    }
+
+    // add the queued tiles from head on to the frontier
+    private void keep(int head)
+    {
+        int count = changedCount - head;
+        if (frontier.length < frontierCount + count)
+            frontier = Arrays.copyOf(frontier, Math.max(frontierCount + count, frontier.length * 2));
+        System.arraycopy(changed, head, frontier, frontierCount, count);
+        frontierCount += count;
+    }
+
+    // marks the tile as revealed and queues it
+    private void push(int row, int column)
+    {
+        Chunk chunk = explore(row, column);
+        int index = index(row, column);
+        chunk.cells[index] |= REVEALED;
+        if ((chunk.cells[index] & MINE) == 0)
+            revealedSafeCells++;
+        if (changedCount == changed.length)
+            changed = Arrays.copyOf(changed, changed.length * 2);
+        changed[changedCount++] = row;
+        changed[changedCount++] = column;
+    }
+
+    // number of tiles the last reveal (or revealAround) changed
+    public int getChangedCount() {
+        return changedCount / 2;
+    }
+
+    // row of a tile changed by the last reveal
+    public int getChangedRow(int i) {
+        return changed[2 * i];
+    }
+
+    // column of a tile changed by the last reveal
+    public int getChangedColumn(int i) {
+        return changed[2 * i + 1];
+    }
+
+    // get the number of mines around the tile
+    public int getMineCount(int row, int column) {
+        return numbered(row, column).cells[index(row, column)] & COUNT_MASK;
+    }
+
+    // check if tile has a mine, this generates the chunk's mines if needed but never makes it count as explored
+    public boolean isMine(int row, int column) {
+        return (mines(row >> CHUNK_BITS, column >> CHUNK_BITS).cells[index(row, column)] & MINE) != 0;
+    }
+
+    // check if the tile is revealed
+    public boolean isRevealed(int row, int column) {
+        return (state(row, column) & REVEALED) != 0;
+    }
+
+    // check if tile is flagged
+    public boolean isFlagged(int row, int column) {
+        return (state(row, column) & FLAGGED) != 0;
+    }
+
+    // function that sets the current tile as flagged
+    public void setFlagged(int row, int column, boolean value)
+    {
+        if (isFlagged(row, column) == value)
+            return;
+        Chunk chunk = explore(row, column);
+        int index = index(row, column);
+        if (value)
+            chunk.cells[index] |= FLAGGED;
+        else
+            chunk.cells[index] &= ~FLAGGED;
+        flaggedCells += value ? 1 : -1;
+    }
+
+    // the player's view of a tile (revealed and flagged bits plus mine and number once explored)
+    // tiles of unexplored chunks are always hidden and unflagged, so looking at them creates nothing
+    private int state(int row, int column)
+    {
+        Chunk chunk = exploredChunk(row >> CHUNK_BITS, column >> CHUNK_BITS);
+        return chunk == null ? 0 : chunk.cells[index(row, column)];
+    }
+
+    // position of a tile inside its chunk
+    private static int index(int row, int column) {
+        return (row & CHUNK_MASK) << CHUNK_BITS | (column & CHUNK_MASK);
+    }
+
+    private static long key(int chunkRow, int chunkColumn) {
+        return (long) chunkRow << 32 | (chunkColumn & 0xFFFFFFFFL);
+    }
+
+    private Chunk exploredChunk(int chunkRow, int chunkColumn)
+    {
+        long key = key(chunkRow, chunkColumn);
+        if (key != lastKey)
+        {
+            Chunk chunk = explored.get(key);
+            if (chunk == null)
+                return null;
+            lastKey = key;
+            lastChunk = chunk;
+        }
+        return lastChunk;
+    }
+
+    // the chunk holding the tile, moved over to the explored chunks (and numbered) if it wasn't one already
+    private Chunk explore(int row, int column)
+    {
+        int chunkRow = row >> CHUNK_BITS;
+        int chunkColumn = column >> CHUNK_BITS;
+        Chunk chunk = exploredChunk(chunkRow, chunkColumn);
+        if (chunk != null)
+            return chunk;
+
+        long key = key(chunkRow, chunkColumn);
+        chunk = cache.remove(key);
+        if (chunk == null)
+            chunk = generate(chunkRow, chunkColumn);
+        count(chunk, chunkRow, chunkColumn);
+        explored.put(key, chunk);
+        return chunk;
+    }
+
+    // the chunk holding the tile with its numbers worked out, explored or not
+    private Chunk numbered(int row, int column)
+    {
+        int chunkRow = row >> CHUNK_BITS;
+        int chunkColumn = column >> CHUNK_BITS;
+        Chunk chunk = mines(chunkRow, chunkColumn);
+        if (!chunk.counted)
+            count(chunk, chunkRow, chunkColumn);
+        return chunk;
+    }
+
+    // the chunk with at least its mines in place, taken from the explored chunks, the cache, or generated into the cache
+    private Chunk mines(int chunkRow, int chunkColumn)
+    {
+        Chunk chunk = exploredChunk(chunkRow, chunkColumn);
+        if (chunk != null)
+            return chunk;
+
+        long key = key(chunkRow, chunkColumn);
+        chunk = cache.get(key);
+        if (chunk == null)
+        {
+            chunk = generate(chunkRow, chunkColumn);
+            cache.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    // lay out a chunk's mines with Floyd's sampling, from a random generator seeded by the world seed and the chunk's position
+    private Chunk generate(int chunkRow, int chunkColumn)
+    {
+        Chunk chunk = new Chunk();
+        SplittableRandom random = new SplittableRandom(seed + chunkRow * 0x9E3779B97F4A7C15L + chunkColumn * 0xC2B2AE3D27D4EB4FL);
+        for (int last = CHUNK_AREA - minesPerChunk; last < CHUNK_AREA; last++)
+        {
+            int index = random.nextInt(last + 1);
+            if ((chunk.cells[index] & MINE) != 0)
+                index = last;
+            chunk.cells[index] |= MINE;
+        }
+
+        // the start area is kept free, the mines that landed there are just left out
+        if (chunkRow >= -1 && chunkRow <= 0 && chunkColumn >= -1 && chunkColumn <= 0)
+        {
+            for (int row = -1; row <= 1; row++)
+                for (int column = -1; column <= 1; column++)
+                    if (row >> CHUNK_BITS == chunkRow && column >> CHUNK_BITS == chunkColumn)
+                        chunk.cells[index(row, column)] &= ~MINE;
+        }
+        return chunk;
+    }
+
+    // work out the numbers of a chunk
+    // the mines of the chunk and of the one-tile ring around it are copied into a padded grid first,
+    // so tiles on the chunk border are counted the same way as the ones in the middle
+    private void count(Chunk chunk, int chunkRow, int chunkColumn)
+    {
+        if (chunk.counted)
+            return;
+
+        int padded = CHUNK_SIZE + 2;
+        boolean[] grid = new boolean[padded * padded];
+        for (int row = 0; row < CHUNK_SIZE; row++)
+            for (int column = 0; column < CHUNK_SIZE; column++)
+                grid[(row + 1) * padded + column + 1] = (chunk.cells[row << CHUNK_BITS | column] & MINE) != 0;
+
+        int firstRow = chunkRow << CHUNK_BITS;
+        int firstColumn = chunkColumn << CHUNK_BITS;
+        for (int i = -1; i <= CHUNK_SIZE; i++)
+        {
+            grid[i + 1] = isMine(firstRow - 1, firstColumn + i);
+            grid[(padded - 1) * padded + i + 1] = isMine(firstRow + CHUNK_SIZE, firstColumn + i);
+            grid[(i + 1) * padded] = isMine(firstRow + i, firstColumn - 1);
+            grid[(i + 1) * padded + padded - 1] = isMine(firstRow + i, firstColumn + CHUNK_SIZE);
+        }
+
+        for (int row = 0; row < CHUNK_SIZE; row++)
+        {
+            for (int column = 0; column < CHUNK_SIZE; column++)
+            {
+                int index = row << CHUNK_BITS | column;
+                if ((chunk.cells[index] & MINE) != 0)
+                    continue;
+                int count = 0;
+                for (int newRow = row; newRow <= row + 2; newRow++)
+                    for (int newColumn = column; newColumn <= column + 2; newColumn++)
+                        if (grid[newRow * padded + newColumn])
+                            count++;
+                chunk.cells[index] |= count;
+            }
+        }
+        chunk.counted = true;
+    }
+
+    // set how many untouched chunks are kept after being generated, extra ones are dropped right away
+    public void setCacheChunks(int cacheChunks)
+    {
+        this.cacheChunks = cacheChunks;
+        evictUntouched();
+    }
+
+    // drop every generated chunk the player hasn't touched, they are rebuilt from the seed if needed again
+    public void evictUntouched()
+    {
+        if (cacheChunks <= 0)
+            cache.clear();
+        else
+            while (cache.size() > cacheChunks)
+                cache.remove(cache.keySet().iterator().next());
+    }
+
+    // number of chunks holding the player's progress
+    public int getExploredChunks() {
+        return explored.size();
+    }
+
+    // number of untouched chunks currently kept in memory
+    public int getCachedChunks() {
+        return cache.size();
+    }
+
+    // number of tiles without a mine that have been revealed
+    public long getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    // number of flags on the board, right or wrong
+    public long getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    // number of mines in every chunk
+    public int getMinesPerChunk() {
+        return minesPerChunk;
+    }
+
+    // get the seed the world was generated from
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,419 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// plays the game on a thread of its own, the only thread that ever changes the game, its board or the solver
+// the window posts what the player did into a queue, and gets back, on the event dispatch thread,
+// an immutable batch of what each event changed, as the sprite every changed tile now shows
+// so mine placement, cascades, no-guess searches, hints, move logs and saves never hold up painting
+public class GameActor
+{
+    // clicks past this many waiting events are dropped instead of piling up behind a slow cascade
+    public static final int QUEUE_SIZE = 64;
+    // a move that changes more tiles than this is sent as a whole new view of the board,
+    // so the event thread swaps one array instead of copying millions of tiles into its own
+    private static final int MAX_CHANGES = 1 << 18;
+    // move logs kept in the log directory, the oldest ones past this are deleted as new ones are written
+    private static final int MAX_LOGS = 100;
+    // the time in the name of the last move log started, shared by every actor so no two games get the same name
+    private static final AtomicLong lastLogTime = new AtomicLong();
+
+    private static final int[] NO_CELLS = new int[0];
+    private static final byte[] NO_SPRITES = new byte[0];
+
+    // what the window gets told, always on the event dispatch thread
+    public interface Listener
+    {
+        void applied(ChangeBatch batch);
+        void failed(String message);
+    }
+
+    // everything the window needs to show after one event, worked out on the game thread and never changed after
+    public static final class ChangeBatch
+    {
+        public final MinesweeperGame.Outcome outcome; // what the move did, null for events that aren't moves
+        public final int[] cells; // tiles that changed, row * columns + column
+        public final byte[] sprites; // the sprite each of those tiles now shows
+        public final byte[] view; // the sprite of every tile, replaces the whole view, null if only the tiles above changed
+        public final boolean newGame; // a new game was started or loaded, every tile not in view is hidden again
+        public final long elapsedNanos; // time on the clock of a new game, the saved time of a loaded one
+        public final int highlight; // tile to outline, -1 for none
+        public final int origin; // tile the move was made on, where a big change spreads out from, -1 for events that aren't moves
+        public final boolean shieldUsed;
+        public final int rows;
+        public final int columns;
+        public final int mines;
+        public final int flags;
+        public final int shields;
+        public final boolean running; // the mines are placed and the game isn't over, so the clock runs
+        public final boolean over;
+        public final int threeBV; // the board's 3BV once the game is over, -1 before
+        public final long seed;
+        public final boolean noGuess;
+        public final boolean guessing; // no-guess boards are on but this one is a normal board, none was found in time
+        public final boolean canUndo;
+        public final boolean canRedo;
+        public final long postedNanos; // when the event was posted, for the click latency
+
+        private ChangeBatch(MinesweeperGame game, MinesweeperGame.Outcome outcome, int[] cells, byte[] sprites, byte[] view,
+                            boolean newGame, long elapsedNanos, int highlight, int origin, boolean shieldUsed, long postedNanos)
+        {
+            this.outcome = outcome;
+            this.cells = cells;
+            this.sprites = sprites;
+            this.view = view;
+            this.newGame = newGame;
+            this.elapsedNanos = elapsedNanos;
+            this.highlight = highlight;
+            this.origin = origin;
+            this.shieldUsed = shieldUsed;
+            this.postedNanos = postedNanos;
+            MinesweeperBoard board = game.getBoard();
+            rows = board.getRows();
+            columns = board.getColumns();
+            mines = board.getMines();
+            flags = game.getFlagsAvailable();
+            shields = game.getShieldsAvailable();
+            running = !game.isFirstClick() && !game.isOver();
+            over = game.isOver();
+            threeBV = over ? board.get3BV() : -1;
+            seed = game.getSeed();
+            noGuess = game.isNoGuess();
+            guessing = game.isGuessing();
+            canUndo = game.isPractice() && game.getHistory().canUndo();
+            canRedo = game.isPractice() && game.getHistory().canRedo();
+        }
+    }
+
+    // events waiting to be played, never full so posting one never blocks the event thread
+    // clicks and flags are kept to QUEUE_SIZE by move, the rest come from menus and keys at the player's pace
+    private final BlockingQueue<Runnable> events = new LinkedBlockingQueue<>();
+    // restarts posted so far, a restart with a newer one queued behind it is skipped
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final Listener listener;
+    private final Path logDirectory;
+
+    // only ever touched on the game thread
+    private MinesweeperGame game;
+    private MinesweeperSolver solver;
+    private MoveLog moveLog;
+    private boolean practice;
+    private boolean showAll; // the view shows every tile as it really is, since the game is over
+
+    // start a game and the thread that plays it, every game is recorded to a move log in the log directory, null to not record
+    public GameActor(int rows, int columns, int mines, Path logDirectory, Listener listener)
+    {
+        this.listener = listener;
+        this.logDirectory = logDirectory;
+        game = new MinesweeperGame(rows, columns, mines);
+        solver = new MinesweeperSolver(game.getBoard());
+        startMoveLog();
+
+        Thread thread = new Thread(this::run, "game-actor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run()
+    {
+        while (true)
+        {
+            try {
+                events.take().run();
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+            catch (Throwable ex) {
+                // one broken event doesn't stop the game, but the player is told, the board may not be as it was left
+                // errors are caught too, a thread that died here would leave a window that silently ignores every click
+                ex.printStackTrace();
+                fail("Something went wrong playing that move.\n" + ex);
+            }
+        }
+    }
+
+    // a move is dropped if QUEUE_SIZE events are already waiting, the player is clicking faster than the game can keep up
+    // only the event thread posts, so the queue can only shrink between the check and the offer
+    private boolean move(Runnable event) {
+        return events.size() < QUEUE_SIZE && events.offer(event);
+    }
+
+    // anything else is always queued, and always played except for a restart made pointless by a newer one
+    private void post(Runnable event) {
+        events.add(event);
+    }
+
+    private void publish(ChangeBatch batch) {
+        SwingUtilities.invokeLater(() -> listener.applied(batch));
+    }
+
+    private void fail(String message) {
+        SwingUtilities.invokeLater(() -> listener.failed(message));
+    }
+
+    // left click: a revealed number gets chorded, any other tile revealed
+    public boolean click(int row, int column)
+    {
+        long posted = System.nanoTime();
+        return move(() -> {
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            MinesweeperBoard board = game.getBoard();
+            int shields = game.getShieldsAvailable();
+            MinesweeperGame.Outcome outcome;
+            if (board.isInBounds(row, column) && board.isRevealed(row, column))
+                outcome = game.chord(row, column);
+            else
+                outcome = game.reveal(row, column);
+
+            // nothing changed, e.g. the tile was flagged or already revealed
+            if (outcome != MinesweeperGame.Outcome.IGNORED)
+            {
+                solver.update();
+                publish(changes(outcome, row * board.getColumns() + column, game.getShieldsAvailable() < shields, posted));
+            }
+            if (Metrics.ENABLED)
+                Metrics.CLICK.record(System.nanoTime() - start);
+        });
+    }
+
+    // right click: places a flag or takes it off
+    public boolean flag(int row, int column)
+    {
+        long posted = System.nanoTime();
+        return move(() -> {
+            MinesweeperGame.Outcome outcome = game.flag(row, column);
+            if (outcome == MinesweeperGame.Outcome.IGNORED)
+                return;
+            if (outcome == MinesweeperGame.Outcome.NO_FLAGS_LEFT)
+            {
+                publish(new ChangeBatch(game, outcome, NO_CELLS, NO_SPRITES, null, false, 0, -1, -1, false, posted));
+                return;
+            }
+            solver.cellChanged(row, column);
+            int cell = row * game.getBoard().getColumns() + column;
+            if (game.isOver() != showAll)
+                publish(changes(outcome, cell, false, posted));
+            else
+                publish(new ChangeBatch(game, outcome, new int[] {cell}, new byte[] {(byte) sprite(row, column)}, null, false, 0, -1, -1, false, posted));
+        });
+    }
+
+    public void undo()
+    {
+        post(() -> {
+            if (game.undo())
+            {
+                solver.update();
+                publish(changes(null, -1, false, System.nanoTime()));
+            }
+        });
+    }
+
+    public void redo()
+    {
+        post(() -> {
+            if (game.redo())
+            {
+                solver.update();
+                publish(changes(null, -1, false, System.nanoTime()));
+            }
+        });
+    }
+
+    // outline the tile the solver thinks is best to click next
+    public void hint()
+    {
+        post(() -> {
+            solver.solve();
+            publish(new ChangeBatch(game, null, NO_CELLS, NO_SPRITES, null, false, 0, solver.getBestCell(), -1, false, System.nanoTime()));
+        });
+    }
+
+    // start over on a new board, played from the seed if it isn't null
+    // restarts asked for faster than they can be played only play the last one, the boards before it would never be seen
+    public void restart(int rows, int columns, int mines, Long seed)
+    {
+        int restart = restarts.incrementAndGet();
+        post(() -> {
+            if (restart != restarts.get())
+                return;
+            // a board of the same size is cleared in place, and so is the solver along with it
+            MinesweeperBoard board = game.getBoard();
+            game.newGame(rows, columns, mines);
+            if (seed != null)
+                game.setNextSeed(seed);
+            if (game.getBoard() == board)
+                solver.reset();
+            else
+                solver = new MinesweeperSolver(game.getBoard());
+            showAll = false;
+            startMoveLog();
+            // the window hides every tile itself, except on a big board, which gets a new view made here off the event thread
+            // (a new array is all zeros, which is SpriteCache.UNREVEALED)
+            byte[] view = rows * columns > MAX_CHANGES ? new byte[rows * columns] : null;
+            publish(new ChangeBatch(game, null, NO_CELLS, NO_SPRITES, view, true, 0, -1, -1, false, System.nanoTime()));
+        });
+    }
+
+    public void setNoGuess(boolean noGuess) {
+        post(() -> game.setNoGuess(noGuess));
+    }
+
+    // turn practice mode on or off for the game being played and the ones after it
+    // a game switched to practice part way through stops being recorded, one switched back isn't recorded until the next game,
+    // since its log would be missing the moves made in between
+    public void setPractice(boolean practice)
+    {
+        post(() -> {
+            this.practice = practice;
+            game.setPractice(practice);
+            if (practice)
+                stopMoveLog();
+            publish(new ChangeBatch(game, null, NO_CELLS, NO_SPRITES, null, false, 0, -1, -1, false, System.nanoTime()));
+        });
+    }
+
+    // write the game and the time on the clock to the file
+    public void save(Path path, long elapsedNanos)
+    {
+        post(() -> {
+            try {
+                GameSnapshot.save(path, game, elapsedNanos);
+            }
+            catch (IOException ex) {
+                fail("The game could not be saved.\n" + ex.getMessage());
+            }
+        });
+    }
+
+    // carry on with a saved game, the clock picks up from where it was
+    public void load(Path path)
+    {
+        post(() -> {
+            GameSnapshot snapshot;
+            try {
+                snapshot = GameSnapshot.load(path);
+            }
+            catch (IOException ex) {
+                fail("The game could not be loaded.\n" + ex.getMessage());
+                return;
+            }
+            // the log would be missing every move made before the save, so a loaded game isn't recorded
+            stopMoveLog();
+            game = snapshot.getGame();
+            game.setPractice(practice);
+            solver = new MinesweeperSolver(game.getBoard());
+            showAll = game.isOver();
+            publish(new ChangeBatch(game, null, NO_CELLS, NO_SPRITES, view(), true, snapshot.getElapsedNanos(), -1, -1, false, System.nanoTime()));
+        });
+    }
+
+    // the tiles in the board's batch of changes, or the whole view if there are too many of them
+    // or the game just ended or was taken back from its end, which changes how every tile is shown
+    private ChangeBatch changes(MinesweeperGame.Outcome outcome, int origin, boolean shieldUsed, long posted)
+    {
+        MinesweeperBoard board = game.getBoard();
+        int count = board.getChangedCount();
+        if (game.isOver() != showAll || count > MAX_CHANGES)
+        {
+            showAll = game.isOver();
+            return new ChangeBatch(game, outcome, NO_CELLS, NO_SPRITES, view(), false, 0, -1, origin, shieldUsed, posted);
+        }
+
+        int[] cells = new int[count];
+        byte[] sprites = new byte[count];
+        for (int i = 0; i < count; i++)
+        {
+            cells[i] = board.getChangedCell(i);
+            sprites[i] = (byte) sprite(cells[i] / board.getColumns(), cells[i] % board.getColumns());
+        }
+        return new ChangeBatch(game, outcome, cells, sprites, null, false, 0, -1, origin, shieldUsed, posted);
+    }
+
+    // the sprite of every tile
+    private byte[] view()
+    {
+        MinesweeperBoard board = game.getBoard();
+        byte[] view = new byte[board.getRows() * board.getColumns()];
+        int cell = 0;
+        for (int row = 0; row < board.getRows(); row++)
+            for (int column = 0; column < board.getColumns(); column++)
+                view[cell++] = (byte) sprite(row, column);
+        return view;
+    }
+
+    // the sprite a tile shows, once the game is over every tile is shown, along with which flags were wrong
+    private int sprite(int row, int column)
+    {
+        MinesweeperBoard board = game.getBoard();
+        // use shield icon if a shield protected the player
+        if (board.isShielded(row, column))
+            return SpriteCache.SHIELD;
+        if (board.isFlagged(row, column))
+            return showAll && !board.isMine(row, column) ? SpriteCache.WRONG_FLAG : SpriteCache.FLAG;
+        if (!board.isRevealed(row, column) && !showAll)
+            return SpriteCache.UNREVEALED;
+        if (board.isMine(row, column))
+            // highlight the mine that was clicked, the rest only show up at the end
+            return board.isRevealed(row, column) ? SpriteCache.MINE_CLICKED : SpriteCache.MINE;
+        if (board.getMineCount(row, column) == 0)
+            return SpriteCache.REVEALED;
+        return SpriteCache.NUMBER + board.getMineCount(row, column) - 1;
+    }
+
+    // record the game that was just started to a new log file named after the time it started,
+    // or a millisecond after the last log's if that was started in the same one, opening the log would empty a file of the same name
+    // the file is only created with the game's first move, so restarting over and over doesn't leave empty logs behind
+    // practice games aren't recorded, a move log has no way to say a move was taken back
+    private void startMoveLog()
+    {
+        stopMoveLog();
+        if (practice || logDirectory == null)
+            return;
+        long time = lastLogTime.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        Path path = logDirectory.resolve("game-" + time + ".mslog");
+        MinesweeperBoard board = game.getBoard();
+        moveLog = new MoveLog(path, board.getRows(), board.getColumns(), board.getMines());
+        game.setMoveLog(moveLog);
+    }
+
+    private void stopMoveLog()
+    {
+        game.setMoveLog(null);
+        if (moveLog != null)
+        {
+            moveLog.close();
+            if (moveLog.isWritten())
+                pruneLogs();
+        }
+        moveLog = null;
+    }
+
+    // delete the oldest logs once there are more than MAX_LOGS
+    // the names are the times the games started, all with as many digits, so they sort oldest first
+    private void pruneLogs()
+    {
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logDirectory, "game-*.mslog"))
+        {
+            for (Path file : files)
+                logs.add(file);
+            Collections.sort(logs);
+            for (int i = 0; i < logs.size() - MAX_LOGS; i++)
+                Files.deleteIfExists(logs.get(i));
+        }
+        catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// a saved game: the board's tiles exactly as they are stored, plus everything the game and the timer need to carry on
+//
+// file layout (big endian):
+//   int    magic "MSWP"
+//   short  format version
+//   int    rows, int columns, int number of mines (version 1 files have a single int size for square boards)
+//   long   seed the mines were placed from
+//   int    flags left, int shields left
+//   byte   first click still to come, byte game over, byte no-guess boards
+//   long   elapsed time in nanoseconds
+//   rows * columns bytes, one per tile, row by row (see MinesweeperBoard for the bit layout)
+public class GameSnapshot
+{
+    private static final int MAGIC = 0x4D535750;
+    // bump this whenever the layout changes, older files are then refused instead of being misread
+    // version 1 only held square boards and is still read
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 8 + 4 + 4 + 1 + 1 + 1 + 8;
+    private static final int VERSION_1_HEADER_BYTES = HEADER_BYTES - 4;
+
+    private MinesweeperGame game;
+    private long elapsedNanos;
+
+    private GameSnapshot(MinesweeperGame game, long elapsedNanos)
+    {
+        this.game = game;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // write the game to the file, replacing whatever was there
+    // the tiles go from the board's array straight to the channel, no copy of the board is made on the way
+    public static void save(Path path, MinesweeperGame game, long elapsedNanos) throws IOException
+    {
+        MinesweeperBoard board = game.getBoard();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putInt(board.getRows());
+        header.putInt(board.getColumns());
+        header.putInt(board.getMines());
+        header.putLong(board.getSeed());
+        header.putInt(game.getFlagsAvailable());
+        header.putInt(game.getShieldsAvailable());
+        header.put((byte) (game.isFirstClick() ? 1 : 0));
+        header.put((byte) (game.isOver() ? 1 : 0));
+        header.put((byte) (game.isNoGuess() ? 1 : 0));
+        header.putLong(elapsedNanos);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer[] buffers = {header, board.getCells()};
+            while (buffers[1].hasRemaining())
+                channel.write(buffers);
+        }
+    }
+
+    // read a game back from a file written by save
+    // the file is memory mapped and its tiles copied into the new board in a single bulk copy, so even a huge board loads
+    // at about the speed of a memory copy, without going through streams or intermediate buffers
+    public static GameSnapshot load(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() < VERSION_1_HEADER_BYTES)
+                throw new IOException(path + " is not a saved Minesweeper game");
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC)
+                throw new IOException(path + " is not a saved Minesweeper game");
+            short version = buffer.getShort();
+            if (version != VERSION && version != 1)
+                throw new IOException(path + " was saved in format version " + version + ", only versions 1 to " + VERSION + " can be read");
+
+            if (version == VERSION && channel.size() < HEADER_BYTES)
+                throw new IOException(path + " is damaged, its header is cut short");
+
+            int rows = buffer.getInt();
+            int columns = version == 1 ? rows : buffer.getInt();
+            int mines = buffer.getInt();
+            long seed = buffer.getLong();
+            int flags = buffer.getInt();
+            int shields = buffer.getInt();
+            boolean firstClick = buffer.get() != 0;
+            boolean over = buffer.get() != 0;
+            boolean noGuess = buffer.get() != 0;
+            long elapsedNanos = buffer.getLong();
+
+            if (rows <= 0 || columns <= 0 || (long) rows * columns != buffer.remaining())
+                throw new IOException(path + " is damaged, its board doesn't match its size");
+            // a board needs at least one tile without a mine, the first click is always on one
+            if (mines < 0 || mines >= (long) rows * columns)
+                throw new IOException(path + " is damaged, " + mines + " mines don't fit on a " + rows + "x" + columns + " board");
+
+            MinesweeperBoard board = new MinesweeperBoard(rows, columns, mines);
+            int minesFound = board.restoreCells(buffer, seed);
+
+            // the counters in the header have to agree with the tiles, or the game would carry on in a state no game can get into
+            // every shield used up left a shielded, flagged mine, and every other flag on the board took one of the flags
+            if (minesFound != (firstClick ? 0 : mines))
+                throw new IOException(path + " is damaged, it has " + minesFound + " mines on its tiles instead of " + (firstClick ? 0 : mines));
+            int shieldsUsed = board.getShieldedCells();
+            if (shields < 0 || shields + shieldsUsed != MinesweeperGame.STARTING_SHIELDS)
+                throw new IOException(path + " is damaged, its " + shields + " shields left don't match the " + shieldsUsed + " used on its tiles");
+            if (flags != mines - (board.getFlaggedCells() - shieldsUsed))
+                throw new IOException(path + " is damaged, its " + flags + " flags left don't match the flags on its tiles");
+
+            MinesweeperGame game = new MinesweeperGame(board, flags, shields, firstClick, over);
+            game.setNoGuess(noGuess);
+            return new GameSnapshot(game, elapsedNanos);
+        }
+    }
+
+    // the game as it was saved
+    public MinesweeperGame getGame() {
+        return game;
+    }
+
+    // time on the clock when the game was saved
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,277 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+// the infinite mode: plays a ChunkedBoard and draws the part of it that is on screen
+// there are no edges to scroll to, so the view is dragged around with the mouse instead of sitting in a scroll pane
+// left click reveals (or chords a number whose mines are all flagged), right click flags, a plain wheel scrolls
+// up and down, shift + wheel sideways and ctrl + wheel zooms
+// the game is over at the first mine, the score is the number of safe tiles revealed
+// only ever used on the event dispatch thread, like the rest of the window
+@SuppressWarnings("serial")
+public class InfiniteCanvas extends JComponent
+{
+    // gets told what every move did, null when a cut short opening carried on by itself
+    public interface Listener
+    {
+        void changed(MinesweeperGame.Outcome outcome);
+    }
+
+    // a fifth of the tiles are mines, comfortably over ChunkedBoard.MIN_DENSITY so openings stay a sensible size
+    public static final double DENSITY = 0.2;
+    // smallest and biggest tile size in pixels, the icons are always drawn so there is no zoomed out colour map
+    private static final int MIN_TILE = 8;
+    private static final int MAX_TILE = 96;
+    private static final int DEFAULT_TILE = 32;
+    private static final double ZOOM_STEP = 1.25;
+    // a press that moves further than this is a drag of the view, not a click
+    private static final int DRAG_PIXELS = 4;
+    // tiles scrolled per notch of the wheel
+    private static final int WHEEL_TILES = 3;
+    // tiles one click reveals at most, a bigger opening carries on over the next frames so a click never holds up the window
+    private static final int REVEAL_TILES = 1 << 14;
+    private static final int FRAME_MILLIS = 16;
+
+    private ChunkedBoard board;
+    private SpriteCache sprites;
+    private Listener listener;
+    private int tileSize = DEFAULT_TILE;
+    // the world position, in pixels, of the top left corner of the component
+    private long viewX;
+    private long viewY;
+    // a mine was hit, the world is only shown from then on
+    private boolean over;
+    private Timer frontier = new Timer(FRAME_MILLIS, e -> spreadFrontier());
+
+    // where the mouse went down and where the view was then, and whether it has since been dragged
+    private Point pressed;
+    private long pressedViewX;
+    private long pressedViewY;
+    private boolean dragged;
+
+    // default
+    public InfiniteCanvas(long seed, SpriteCache sprites, Listener listener)
+    {
+        this.sprites = sprites;
+        this.listener = listener;
+        setOpaque(true);
+        setPreferredSize(new Dimension(20 * DEFAULT_TILE, 16 * DEFAULT_TILE));
+        newWorld(seed);
+
+        MouseAdapter mouse = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent evt)
+            {
+                if (SwingUtilities.isRightMouseButton(evt))
+                {
+                    flag(rowAt(evt.getY()), columnAt(evt.getX()));
+                    return;
+                }
+                pressed = evt.getPoint();
+                pressedViewX = viewX;
+                pressedViewY = viewY;
+                dragged = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent evt)
+            {
+                if (pressed == null)
+                    return;
+                int dx = evt.getX() - pressed.x;
+                int dy = evt.getY() - pressed.y;
+                if (!dragged && Math.abs(dx) <= DRAG_PIXELS && Math.abs(dy) <= DRAG_PIXELS)
+                    return;
+                dragged = true;
+                viewX = pressedViewX - dx;
+                viewY = pressedViewY - dy;
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent evt)
+            {
+                if (pressed != null && !dragged && SwingUtilities.isLeftMouseButton(evt))
+                    click(rowAt(evt.getY()), columnAt(evt.getX()));
+                pressed = null;
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent evt)
+            {
+                if (evt.isControlDown())
+                    zoom(evt.getWheelRotation() < 0 ? ZOOM_STEP : 1 / ZOOM_STEP, evt.getPoint());
+                else if (evt.isShiftDown())
+                    scroll(evt.getWheelRotation() * WHEEL_TILES * tileSize, 0);
+                else
+                    scroll(0, evt.getWheelRotation() * WHEEL_TILES * tileSize);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    // start over on a new world, with the view centered on the tile 0,0 that is always safe to start on
+    public void newWorld(long seed)
+    {
+        frontier.stop();
+        board = new ChunkedBoard(seed, DENSITY);
+        board.setMaxReveal(REVEAL_TILES);
+        over = false;
+        Dimension size = getWidth() > 0 ? getSize() : getPreferredSize();
+        viewX = tileSize / 2 - size.width / 2;
+        viewY = tileSize / 2 - size.height / 2;
+        repaint();
+    }
+
+    public ChunkedBoard getBoard() {
+        return board;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    // reveal a hidden tile, or chord a revealed number whose mines are all flagged
+    private void click(int row, int column)
+    {
+        if (over || board.isFlagged(row, column))
+            return;
+
+        int changed;
+        if (!board.isRevealed(row, column))
+            changed = board.reveal(row, column);
+        else
+        {
+            int count = board.getMineCount(row, column);
+            if (count == 0 || board.countAdjacentFlags(row, column) != count)
+                return;
+            changed = board.revealAround(row, column);
+        }
+        if (changed == 0)
+            return;
+
+        // a reveal stops at the first mine, so one can only be among the changed tiles if it was clicked or chorded
+        for (int i = 0; i < changed; i++)
+        {
+            if (board.isMine(board.getChangedRow(i), board.getChangedColumn(i)))
+            {
+                over = true;
+                frontier.stop();
+                repaint();
+                listener.changed(MinesweeperGame.Outcome.LOST);
+                return;
+            }
+        }
+        if (board.hasFrontier())
+            frontier.start();
+        repaint();
+        listener.changed(MinesweeperGame.Outcome.REVEALED);
+    }
+
+    private void flag(int row, int column)
+    {
+        if (over || board.isRevealed(row, column))
+            return;
+        boolean flagged = !board.isFlagged(row, column);
+        board.setFlagged(row, column, flagged);
+        repaint(tileX(column), tileY(row), tileSize, tileSize);
+        listener.changed(flagged ? MinesweeperGame.Outcome.FLAG_PLACED : MinesweeperGame.Outcome.FLAG_REMOVED);
+    }
+
+    // carry on an opening that was cut short, a bit more every frame until it is done
+    private void spreadFrontier()
+    {
+        if (!board.hasFrontier())
+        {
+            frontier.stop();
+            return;
+        }
+        board.revealFrontier();
+        repaint();
+        listener.changed(null);
+    }
+
+    // move the view by the given number of pixels
+    private void scroll(long dx, long dy)
+    {
+        viewX += dx;
+        viewY += dy;
+        repaint();
+    }
+
+    // zoom by the factor, keeping the point of the world under the anchor where it is
+    private void zoom(double factor, Point anchor)
+    {
+        int newSize = (int) Math.round(tileSize * factor);
+        if (newSize == tileSize)
+            newSize += factor > 1 ? 1 : -1;
+        newSize = Math.max(MIN_TILE, Math.min(MAX_TILE, newSize));
+        if (newSize == tileSize)
+            return;
+
+        double anchorColumn = (viewX + anchor.x) / (double) tileSize;
+        double anchorRow = (viewY + anchor.y) / (double) tileSize;
+        tileSize = newSize;
+        viewX = Math.round(anchorColumn * tileSize) - anchor.x;
+        viewY = Math.round(anchorRow * tileSize) - anchor.y;
+        repaint();
+    }
+
+    // the tile under a position on the component
+    private int rowAt(int y) {
+        return (int) Math.floorDiv(viewY + y, tileSize);
+    }
+
+    private int columnAt(int x) {
+        return (int) Math.floorDiv(viewX + x, tileSize);
+    }
+
+    // where a tile is on the component
+    private int tileX(int column) {
+        return (int) ((long) column * tileSize - viewX);
+    }
+
+    private int tileY(int row) {
+        return (int) ((long) row * tileSize - viewY);
+    }
+
+    // the sprite a tile shows, once the game is over the mines on screen and the wrong flags are shown too
+    private int sprite(int row, int column)
+    {
+        if (board.isFlagged(row, column))
+            return over && !board.isMine(row, column) ? SpriteCache.WRONG_FLAG : SpriteCache.FLAG;
+        if (board.isRevealed(row, column))
+        {
+            if (board.isMine(row, column))
+                return SpriteCache.MINE_CLICKED;
+            int count = board.getMineCount(row, column);
+            return count == 0 ? SpriteCache.REVEALED : SpriteCache.NUMBER + count - 1;
+        }
+        return over && board.isMine(row, column) ? SpriteCache.MINE : SpriteCache.UNREVEALED;
+    }
+
+    // draw only the tiles inside the area being repainted, the board has no end so there is never more than a screenful
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        int firstRow = rowAt(clip.y);
+        int lastRow = rowAt(clip.y + clip.height - 1);
+        int firstColumn = columnAt(clip.x);
+        int lastColumn = columnAt(clip.x + clip.width - 1);
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                Image image = sprites.get(sprite(row, column), tileSize, tileSize).getImage();
+                g.drawImage(image, tileX(column), tileY(row), null);
+            }
+        }
+    }
+}
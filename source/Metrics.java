@@ -0,0 +1,157 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// timings and counts of the hot paths, shown by MetricsOverlay and sent to Java Flight Recorder (see MinesweeperEvents)
+// everything is off unless the game is started with -Dminesweeper.metrics=true
+// ENABLED is a constant, so with it off the JIT drops every "if (Metrics.ENABLED)" block and the measuring costs nothing
+public class Metrics
+{
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    // every timer and counter made so far, in the order they were made
+    private static final List<Timer> timers = new CopyOnWriteArrayList<>();
+    private static final List<Counter> counters = new CopyOnWriteArrayList<>();
+
+    public static final Timer CLICK_TO_PAINT = timer("click to paint");
+    public static final Timer CLICK = timer("click handler");
+    public static final Timer CLICK_TO_BATCH = timer("click to batch");
+    public static final Timer APPLY = timer("batch apply");
+    public static final Timer REVEAL_SLICE = timer("reveal slice");
+    public static final Timer REVEAL_WAVE = timer("reveal wave");
+    public static final Counter REVEAL_TILES = counter("reveal tiles");
+    public static final Timer CASCADE = timer("cascade");
+    public static final Counter CASCADE_TILES = counter("cascade tiles");
+    public static final Timer PLACE_MINES = timer("place mines");
+    public static final Timer ICON_SCALE = timer("icon scale");
+    public static final Counter ICON_HITS = counter("icon hits");
+    public static final Counter ICON_MISSES = counter("icon misses");
+    public static final Timer SOUND_OPEN = timer("sound open");
+    public static final Timer SOUND_PLAY = timer("sound play");
+    public static final Timer EDT_STALL = timer("edt stall");
+    public static final Counter FRAMES = counter("frames");
+    public static final Timer FIRST_FRAME = timer("first frame");
+
+    // the board has been drawn for the first time, record and print how long after the JVM started that was
+    // this is the startup time the player sees, class loading, asset decoding and window creation all included
+    public static void firstFrame()
+    {
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        FIRST_FRAME.record(millis * 1_000_000L);
+        System.out.println("First frame " + millis + " ms after start");
+    }
+
+    public static Timer timer(String name)
+    {
+        Timer timer = new Timer(name);
+        timers.add(timer);
+        return timer;
+    }
+
+    public static Counter counter(String name)
+    {
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    public static List<Timer> getTimers() {
+        return timers;
+    }
+
+    public static List<Counter> getCounters() {
+        return counters;
+    }
+
+    // a histogram of durations with a bucket for every quarter of a power of two, so any percentile is within ~20%
+    // recording is a couple of shifts and an atomic add, no locking and no allocation
+    public static class Timer
+    {
+        private static final int SUB_BUCKETS = 4;
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public void record(long nanos)
+        {
+            buckets.incrementAndGet(bucket(Math.max(nanos, 1)));
+            count.increment();
+        }
+
+        // the bucket is the position of the top bit, plus the 2 bits below it
+        private static int bucket(long nanos)
+        {
+            int top = 63 - Long.numberOfLeadingZeros(nanos);
+            int fraction = top >= 2 ? (int) (nanos >>> (top - 2)) & (SUB_BUCKETS - 1) : 0;
+            return top * SUB_BUCKETS + fraction;
+        }
+
+        // the upper end of a bucket in nanoseconds
+        private static long bucketLimit(int bucket)
+        {
+            int top = bucket / SUB_BUCKETS;
+            int fraction = bucket % SUB_BUCKETS;
+            if (top < 2)
+                return 2L << top;
+            return (1L << top) + ((fraction + 1L) << (top - 2));
+        }
+
+        // duration that the given share of recordings (0 to 1) took at most, in nanoseconds
+        public long percentile(double share)
+        {
+            long total = count.sum();
+            if (total == 0)
+                return 0;
+            long wanted = (long) Math.ceil(share * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++)
+            {
+                seen += buckets.get(i);
+                if (seen >= wanted)
+                    return bucketLimit(i);
+            }
+            return bucketLimit(buckets.length() - 1);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // a running total, e.g. cache hits
+    public static class Counter
+    {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// a small panel drawn over the corner of the window with the latencies and frame rate from Metrics
+// it is meant to go in the frame's layered pane above the board, it has no mouse listeners so every click goes through to it
+// it is opaque and only as big as its text, so a refresh repaints just the panel and not the board under it,
+// which would count as a frame of the board and push up the frame rate shown
+// it also watches the event thread: a timer that should fire every TICK_MILLIS measures how late it actually fires,
+// and that lateness is how long the event thread was stuck on something else
+@SuppressWarnings("serial")
+public class MetricsOverlay extends JComponent
+{
+    private static final int TICK_MILLIS = 50;
+    // stalls shorter than this are just timer jitter
+    private static final long STALL_NANOS = 20_000_000L;
+    // the text is rebuilt this often
+    private static final long REFRESH_NANOS = 500_000_000L;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color BACKGROUND = new Color(32, 32, 32);
+    // space around the text, and between the panel and the corner of the window
+    private static final int PAD = 4;
+
+    private String[] lines = new String[0];
+    private long lastTick = System.nanoTime();
+    private long lastRefresh = lastTick;
+    private long lastFrames;
+    private double framesPerSecond;
+    // begun at every tick and only committed when the next one is late
+    private MinesweeperEvents.EdtStall stall = new MinesweeperEvents.EdtStall();
+
+    // default
+    public MetricsOverlay()
+    {
+        setOpaque(true);
+        stall.begin();
+        new Timer(TICK_MILLIS, e -> tick()).start();
+    }
+
+    private void tick()
+    {
+        long now = System.nanoTime();
+        long late = now - lastTick - TICK_MILLIS * 1_000_000L;
+        lastTick = now;
+        if (late > STALL_NANOS)
+        {
+            Metrics.EDT_STALL.record(late);
+            stall.late = late;
+            stall.commit();
+            stall = new MinesweeperEvents.EdtStall();
+        }
+        stall.begin();
+
+        if (now - lastRefresh >= REFRESH_NANOS)
+        {
+            long frames = Metrics.FRAMES.get();
+            framesPerSecond = (frames - lastFrames) * 1e9 / (now - lastRefresh);
+            lastFrames = frames;
+            lastRefresh = now;
+            refresh();
+        }
+    }
+
+    // one line per timer that has seen anything, p50 and p99 since the game started
+    private void refresh()
+    {
+        List<String> text = new ArrayList<>();
+        text.add(String.format("%.0f fps", framesPerSecond));
+        for (Metrics.Timer timer : Metrics.getTimers())
+        {
+            if (timer.getCount() > 0)
+                text.add(String.format("%s  p50 %.2f ms  p99 %.2f ms  (%d)", timer.getName(),
+                    timer.percentile(0.5) / 1e6, timer.percentile(0.99) / 1e6, timer.getCount()));
+        }
+        long hits = Metrics.ICON_HITS.get();
+        long misses = Metrics.ICON_MISSES.get();
+        if (hits + misses > 0)
+            text.add(String.format("icon cache hits %.1f%%", 100.0 * hits / (hits + misses)));
+        if (Metrics.CASCADE.getCount() > 0)
+            text.add(String.format("cascade avg %.1f tiles", (double) Metrics.CASCADE_TILES.get() / Metrics.CASCADE.getCount()));
+
+        lines = text.toArray(new String[0]);
+
+        // the panel is sized to the text, moving the edge repaints what was under it but that only happens as lines come and go
+        FontMetrics font = getFontMetrics(FONT);
+        int width = 0;
+        for (String line : lines)
+            width = Math.max(width, font.stringWidth(line));
+        setBounds(PAD, PAD, width + 2 * PAD, lines.length * font.getHeight() + 2 * PAD);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        g.setFont(FONT);
+        g.setColor(Color.WHITE);
+        FontMetrics font = g.getFontMetrics();
+        for (int i = 0; i < lines.length; i++)
+            g.drawString(lines[i], PAD, PAD + font.getAscent() + i * font.getHeight());
+    }
+}
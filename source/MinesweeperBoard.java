@@ -1,146 +1,856 @@
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class MinesweeperBoard
 {
     // size of board
-    private int size;
+    private int rows;
+    private int columns;
     // number of mines
     private int mines;
-    // 2D array for the board, minecount, revealed tiles, flagged tiles, and shield tiles
-    // handles the boundary of where to select
-    private char[][] board;
-    private int[][] mineCount;
-    private boolean[][] revealed;
-    private boolean[][] flagged;
-    private boolean[][] shielded;
-
-    // empty tiles are considered "Empty" while mined tiles are considered "Mined"
-    // variables used in the random generation
-    private static final int EMPTY = 0;
-    private static final int MINE = 1;
+    // one byte per tile, stored row by row in a single flat array (index = row * columns + column)
+    // every tile keeps all of its state in that byte, so a full board scan walks memory in order
+    // and a 10k x 10k board only needs ~100MB instead of the old five separate 2D arrays
+    private byte[] cells;
+    // the seed the mines were placed from, and where the mines went
+    private long seed;
+    private int[] mineCells = new int[0];
+
+    // layout of a tile byte:
+    // bits 0-3 hold the number of adjacent mines (0-8)
+    // bit 4 is set when the tile is a mine, bit 5 when it is revealed, bit 6 when it is flagged
+    // and bit 7 when a shield was used up on it
+    private static final int COUNT_MASK = 0x0F;
+    private static final int MINE = 0x10;
+    private static final int REVEALED = 0x20;
+    private static final int FLAGGED = 0x40;
+    private static final int SHIELDED = 0x80;
+
+    // boards with at least this many tiles are worth counting in parallel (about 2k x 2k)
+    private static final int PARALLEL_COUNT_THRESHOLD = 1 << 22;
+    // and only if at least one tile in this many is a mine, sparser boards are quicker to count mine by mine
+    private static final int PARALLEL_COUNT_DENSITY = 32;
+    // bands smaller than this many rows are counted directly instead of being split further
+    private static final int BAND_ROWS = 64;
+    // boards up to this many tiles (about 2.9k x 2.9k) get their openings indexed when the mines are placed,
+    // the index takes a few ints per run of empty tiles, up to about 6 bytes a tile, so bigger boards fill tile by tile instead
+    private static final int INDEX_MAX_TILES = 1 << 23;
+
+    // work queue for the flood fill in reveal, kept between calls so a click doesn't allocate
+    // every tile the fill reveals is pushed exactly once, so once the fill is done the queue
+    // doubles as the list of tiles the last reveal changed
+    private int[] changed = new int[64];
+    private int changedCount;
+
+    // the openings: groups of connected empty tiles, which are fixed once the mines are placed and get found then in one pass
+    // they are kept as runs: the empty tiles next to each other in a row, from runFirst[i] to runLast[i], in board order,
+    // with the runs of each row starting at rowRuns[row], and runOpening[i] the opening run i is part of
+    // the runs of opening r are openingRuns[openingStart[r]] up to openingStart[r + 1]
+    // openingStart is null until the mines are placed, and on boards bigger than INDEX_MAX_TILES
+    // the arrays of runs are kept when the openings are forgotten, so the next board only allocates if it has more runs
+    private int[] runFirst = new int[0];
+    private int[] runLast = new int[0];
+    private int[] runOpening = new int[0];
+    private int[] openingRuns = new int[0];
+    private int[] rowRuns;
+    private int[] openingStart;
+    private int[] openingEmpty; // number of empty tiles in each opening
+    // empty tiles of each opening that are revealed or flagged, an opening with none of them opens in full from the index
+    private int[] openingTouched;
+    // the 3BV of the board, -1 before the mines are placed, -2 when it hasn't been worked out yet
+    private int threeBV = -1;
+
+    // running totals kept up to date whenever a tile changes, so checking for a win never needs a board scan
+    private int revealedSafeCells;
+    private int flaggedMines;
+    private int flaggedCells;
+    private int shieldedCells;
 
     // default
-    public MinesweeperBoard(int size, int mines) {
-        this.size = size;
+    public MinesweeperBoard(int rows, int columns, int mines) {
+        this.rows = rows;
+        this.columns = columns;
         this.mines = mines;
-        board = new char[size][size];
-        mineCount = new int[size][size];
-        revealed = new boolean[size][size];
-        flagged = new boolean[size][size];
-        shielded = new boolean[size][size];
-        initializeBoard();
+        // a new array is already all zeroes, meaning every tile starts empty, hidden and unflagged
+        cells = new byte[rows * columns];
     }
 
-    // all of the board is initialized as empty at first when generated once the program is first launched
-    // the board then fills up later on with numbers and mines
-    private void initializeBoard()
+    // square board
+    public MinesweeperBoard(int size, int mines) {
+        this(size, size, mines);
+    }
+
+    // set the board back to how a new one starts out, without allocating a new one
+    // used when the same size is played again, e.g. restarting or playing many games in a row
+    public void reset(int mines)
     {
-        for (int row = 0; row < size; row++)
-        {
-            for (int column = 0; column < size; column++)
-            {
-                board[row][column] = EMPTY;
-                revealed[row][column] = false;
-                flagged[row][column] = false;
-                shielded[row][column] = false;
-                mineCount[row][column] = 0;
-            }
-        }
+        this.mines = mines;
+        Arrays.fill(cells, (byte) 0);
+        seed = 0;
+        changedCount = 0;
+        clearOpenings();
+        revealedSafeCells = 0;
+        flaggedMines = 0;
+        flaggedCells = 0;
+        shieldedCells = 0;
     }
 
+    // which tiles around the first click are kept free of mines
+    // CELL keeps only the clicked tile safe, AREA keeps the full 3x3 around it safe so the first click always opens up
+    public enum SafeZone { CELL, AREA }
+
     // function that handles mine placement
-    public void placeMines(int initialRow, int initialColumn)
+    public void placeMines(int initialRow, int initialColumn) {
+        placeMines(initialRow, initialColumn, new SplittableRandom().nextLong(), SafeZone.CELL);
+    }
+
+    // mine placement from a seed, the same seed, first click and safe zone always give the same board
+    // uses Floyd's sampling over the tiles outside the safe zone, so it takes one random number per mine no matter how dense the board is
+    public void placeMines(int initialRow, int initialColumn, long seed, SafeZone safeZone)
     {
-        // random placement, and a counter for the mines that exist
-        Random random = new Random();
+        if (!isInBounds(initialRow, initialColumn))
+            throw new IllegalArgumentException("First click " + initialRow + "," + initialColumn + " is outside the board");
+
+        // the tiles kept free of mines, in increasing order
+        int[] zone = new int[9];
+        int zoneSize = 0;
+        int reach = safeZone == SafeZone.AREA ? 1 : 0;
+        for (int row = initialRow - reach; row <= initialRow + reach; row++)
+            for (int column = initialColumn - reach; column <= initialColumn + reach; column++)
+                if (isInBounds(row, column))
+                    zone[zoneSize++] = row * columns + column;
+
+        // num of mines placed cant exceed the number of tiles they can go on
+        int candidates = rows * columns - zoneSize;
+        if (mines < 0 || mines > candidates)
+            throw new IllegalArgumentException(mines + " mines don't fit on a " + rows + "x" + columns + " board with a " + zoneSize + " tile safe zone");
+
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+        // a board that is reset and played again keeps its mine list
+        if (mineCells.length != mines)
+            mineCells = new int[mines];
         int minesPlaced = 0;
-        // num of mines placed cant exceed the total num of mines
-        // if the num of mines placed is less than total, fetch a random tile and turn it into a mined tile
-        while (minesPlaced < mines)
+        // Floyd's sampling: for each of the last "mines" positions, pick a random position up to it
+        // and if that one is already a mine take the position itself, which can't be one yet
+        for (int last = candidates - mines; last < candidates; last++)
         {
-            int row = random.nextInt(size);
-            int column = random.nextInt(size);
+            int cell = skipZone(random.nextInt(last + 1), zone, zoneSize);
+            if ((cells[cell] & MINE) != 0)
+                cell = skipZone(last, zone, zoneSize);
 
-            if ((row != initialRow || column != initialColumn) && board[row][column] != MINE)
-            {
-                board[row][column] = MINE;
-                minesPlaced++;
-            }
+            cells[cell] |= MINE;
+            mineCells[minesPlaced++] = cell;
+            // a flag placed before the first click may turn out to be sitting on a mine
+            if ((cells[cell] & FLAGGED) != 0)
+                flaggedMines++;
         }
         // call a second function
         calculateMineCounts();
+        indexOpenings();
+    }
+
+    // turn a position among the tiles outside the safe zone into a tile index on the board
+    private static int skipZone(int position, int[] zone, int zoneSize)
+    {
+        int cell = position;
+        for (int i = 0; i < zoneSize && zone[i] <= cell; i++)
+            cell++;
+        return cell;
     }
 
     // used to check the tiles adjacent to mines to place the number tiles
     // there are tiles where mines can be adjacent to, so to calculate the number, we need to check each adjacent tile
     // in the end, there might be some tiles where there are no adjacent mines, those remain empty
     // empty tiles have no number
-    private void calculateMineCounts()
-    {
-        // go through adjacent directions 1 tile at a time (left/right/up/down)
-        int[] directions = {-1, 0, 1};
-    
-        // traverse board
-        for (int row = 0; row < size; row++)
-            for (int column = 0; column < size; column++)
-                // Only continue if tile is not a mine
-                if (board[row][column] != MINE)
-                    // get the row and column of the adjacent tiles
-                    for (int direction_row : directions)
-                        for (int direction_column : directions)
-                        {
-                            int newRow = row + direction_row;
-                            int newColumn = column + direction_column;
+    // big, dense boards are split into bands of rows counted on every core, everything else goes mine by mine
+    // package-private so the benchmarks can time it on its own, after clearMineCounts
+    void calculateMineCounts()
+    {
+        int cores = ForkJoinPool.getCommonPoolParallelism();
+        if (cells.length >= PARALLEL_COUNT_THRESHOLD && cores > 1 && (long) mines * PARALLEL_COUNT_DENSITY >= cells.length)
+            ForkJoinPool.commonPool().invoke(new CountBand(0, rows));
+        else
+            scatterMineCounts();
+    }
+
+    // take every number off the board and keep the mines, so calculateMineCounts can count them again (used by the benchmarks)
+    void clearMineCounts()
+    {
+        for (int cell = 0; cell < cells.length; cell++)
+            cells[cell] &= ~COUNT_MASK;
+    }
+
+    // every mine adds 1 to each of its neighbours that isn't a mine itself, so the cost only depends on the number of mines
+    private void scatterMineCounts()
+    {
+        for (int mine : mineCells)
+        {
+            int row = mine / columns;
+            int column = mine % columns;
+            if (row > 0 && row < rows - 1 && column > 0 && column < columns - 1)
+            {
+                // away from the edges all 8 neighbours exist, no bounds checks needed
+                for (int neighbour = mine - columns - 1; neighbour <= mine + columns + 1; neighbour += columns)
+                    for (int i = neighbour; i <= neighbour + 2; i++)
+                        if ((cells[i] & MINE) == 0)
+                            cells[i]++;
+            }
+            else
+            {
+                for (int newRow = row - 1; newRow <= row + 1; newRow++)
+                    for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                        if (isInBounds(newRow, newColumn) && (cells[newRow * columns + newColumn] & MINE) == 0)
+                            cells[newRow * columns + newColumn]++;
+            }
+        }
+    }
+
+    // counts a band of rows: every tile of the band looks at the mines in the rows above and below it (the halo rows),
+    // but only ever writes to its own rows, so the bands can run side by side without locking
+    @SuppressWarnings("serial")
+    private class CountBand extends RecursiveAction
+    {
+        private final int firstRow;
+        private final int endRow;
+
+        CountBand(int firstRow, int endRow)
+        {
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (endRow - firstRow > BAND_ROWS)
+            {
+                int middle = (firstRow + endRow) >>> 1;
+                invokeAll(new CountBand(firstRow, middle), new CountBand(middle, endRow));
+                return;
+            }
+
+            // mines in each column of the 3 rows around the current one, padded by a column on each side
+            int[] columnMines = new int[columns + 2];
+            for (int row = firstRow; row < endRow; row++)
+            {
+                for (int column = 0; column < columns; column++)
+                {
+                    int count = 0;
+                    for (int newRow = Math.max(0, row - 1); newRow <= Math.min(rows - 1, row + 1); newRow++)
+                        if ((cells[newRow * columns + column] & MINE) != 0)
+                            count++;
+                    columnMines[column + 1] = count;
+                }
+                for (int column = 0; column < columns; column++)
+                {
+                    int cell = row * columns + column;
+                    if ((cells[cell] & MINE) == 0)
+                        cells[cell] |= columnMines[column] + columnMines[column + 1] + columnMines[column + 2];
+                }
+            }
+        }
+    }
+
+    // find every opening once the numbers are counted, in one pass over the rows: every run of empty tiles is joined
+    // with the runs of the row above that it touches (diagonally counts), so only the runs go through the union-find and
+    // not every tile, then the openings are numbered in board order and their runs grouped by opening
+    // revealing an opening then reveals the three rows around each of its runs, no flood fill, and the 3BV can be
+    // worked out from the runs too
+    private void indexOpenings()
+    {
+        clearOpenings();
+        threeBV = -2;
+        if (cells.length > INDEX_MAX_TILES)
+            return;
+
+        if (rowRuns == null || rowRuns.length != rows + 1)
+            rowRuns = new int[rows + 1];
+        // while the runs are found runOpening holds the union-find parent of each run, always a run that comes
+        // before it, so the first run of every opening is its root
+        int runs = 0;
+        for (int row = 0, rowStart = 0; row < rows; row++, rowStart += columns)
+        {
+            rowRuns[row] = runs;
+            int above = row > 0 ? rowRuns[row - 1] : 0;
+            int aboveEnd = runs;
+            int rowEnd = rowStart + columns;
+            for (int cell = rowStart; cell < rowEnd; cell++)
+            {
+                if (!isEmpty(cell))
+                    continue;
+                int first = cell;
+                while (cell + 1 < rowEnd && isEmpty(cell + 1))
+                    cell++;
+                if (runs == runFirst.length)
+                    growRuns();
+                runFirst[runs] = first;
+                runLast[runs] = cell;
+                runOpening[runs] = runs;
+
+                // runs above that end more than a tile before this one starts can't touch the runs after it either
+                while (above < aboveEnd && runLast[above] + columns < first - 1)
+                    above++;
+                for (int other = above; other < aboveEnd && runFirst[other] + columns <= cell + 1; other++)
+                    join(runs, other);
+                runs++;
+            }
+        }
+        rowRuns[rows] = runs;
+
+        // number the openings by their first run and count their empty tiles
+        int openings = 0;
+        // a run's parent comes before it and is part of the same opening, so it already has its number by then
+        for (int run = 0; run < runs; run++)
+        {
+            int parent = runOpening[run];
+            runOpening[run] = parent == run ? openings++ : runOpening[parent];
+        }
+        int[] start = new int[openings + 1];
+        int[] empty = new int[openings];
+        for (int run = 0; run < runs; run++)
+        {
+            start[runOpening[run] + 1]++;
+            empty[runOpening[run]] += runLast[run] - runFirst[run] + 1;
+        }
+        for (int r = 0; r < openings; r++)
+            start[r + 1] += start[r];
+        // the runs of each opening in board order, the starts are moved on as they are filled in and put back after
+        if (openingRuns.length < runs)
+            openingRuns = new int[runFirst.length];
+        for (int run = 0; run < runs; run++)
+            openingRuns[start[runOpening[run]]++] = run;
+        System.arraycopy(start, 0, start, 1, openings);
+        start[0] = 0;
+
+        openingStart = start;
+        openingEmpty = empty;
+        openingTouched = new int[openings];
+        // the mines go down on the first click, so only boards restored from a save or flagged before it have touched openings
+        if (revealedSafeCells > 0 || flaggedCells > 0)
+        {
+            for (int run = 0; run < runs; run++)
+                for (int cell = runFirst[run]; cell <= runLast[run]; cell++)
+                    if ((cells[cell] & (REVEALED | FLAGGED)) != 0)
+                        openingTouched[runOpening[run]]++;
+        }
+    }
+
+    // join the sets of two runs, under whichever root comes first, so parents only ever point back
+    private void join(int run, int other)
+    {
+        int a = root(run);
+        int b = root(other);
+        if (a < b)
+            runOpening[b] = a;
+        else if (b < a)
+            runOpening[a] = b;
+    }
+
+    // the root of a run's set, halving the path on the way so later roots are found sooner
+    private int root(int run)
+    {
+        while (runOpening[run] != run)
+        {
+            runOpening[run] = runOpening[runOpening[run]];
+            run = runOpening[run];
+        }
+        return run;
+    }
+
+    // make room for twice the runs, starting at one for every 8 tiles, which is about as many as any density has
+    private void growRuns()
+    {
+        int length = Math.max(Math.max(64, cells.length / 8), runFirst.length * 2);
+        runFirst = Arrays.copyOf(runFirst, length);
+        runLast = Arrays.copyOf(runLast, length);
+        runOpening = Arrays.copyOf(runOpening, length);
+    }
+
+    // the tiles in an opening or next to one, counted a row at a time from the runs of that row and the rows on either
+    // side widened by a tile each way, whose overlaps are merged in the order they start in
+    private int aroundOpenings()
+    {
+        int tiles = 0;
+        for (int row = 0; row < rows; row++)
+        {
+            int rowStart = row * columns;
+            int a = row > 0 ? rowRuns[row - 1] : 0;
+            int aEnd = row > 0 ? rowRuns[row] : 0;
+            int b = rowRuns[row];
+            int bEnd = rowRuns[row + 1];
+            int c = row < rows - 1 ? rowRuns[row + 1] : 0;
+            int cEnd = row < rows - 1 ? rowRuns[row + 2] : 0;
+            int from = 0;
+            int to = -1;
+            while (a < aEnd || b < bEnd || c < cEnd)
+            {
+                // the run that starts first, as columns of this row
+                int run;
+                int shift;
+                int aFirst = a < aEnd ? runFirst[a] + columns : Integer.MAX_VALUE;
+                int bFirst = b < bEnd ? runFirst[b] : Integer.MAX_VALUE;
+                int cFirst = c < cEnd ? runFirst[c] - columns : Integer.MAX_VALUE;
+                if (aFirst <= bFirst && aFirst <= cFirst)
+                {
+                    run = a++;
+                    shift = columns;
+                }
+                else if (bFirst <= cFirst)
+                {
+                    run = b++;
+                    shift = 0;
+                }
+                else
+                {
+                    run = c++;
+                    shift = -columns;
+                }
+                int first = Math.max(runFirst[run] + shift - rowStart - 1, 0);
+                int last = Math.min(runLast[run] + shift - rowStart + 1, columns - 1);
+                if (first > to)
+                {
+                    tiles += to - from + 1;
+                    from = first;
+                }
+                to = Math.max(to, last);
+            }
+            tiles += to - from + 1;
+        }
+        return tiles;
+    }
+
+    // the opening an empty tile is part of, -1 for any other tile or before the openings are indexed
+    private int openingOf(int cell)
+    {
+        if (openingStart == null || !isEmpty(cell))
+            return -1;
+        // the last run of the tile's row that starts at or before it, which an empty tile is always part of
+        int row = cell / columns;
+        int low = rowRuns[row];
+        int high = rowRuns[row + 1] - 1;
+        while (low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+            if (runFirst[middle] <= cell)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return runOpening[low];
+    }
+
+    // forget the openings, the arrays of runs are kept so the next board can reuse them
+    private void clearOpenings()
+    {
+        openingStart = null;
+        openingEmpty = null;
+        openingTouched = null;
+        threeBV = -1;
+    }
+
+    // an empty tile: no mine and no mines around it
+    private boolean isEmpty(int cell) {
+        return (cells[cell] & (MINE | COUNT_MASK)) == 0;
+    }
+
+    // keep the count of revealed or flagged empty tiles of an opening right when one of its tiles changes
+    private void touched(int cell, int before, int after)
+    {
+        boolean was = (before & (REVEALED | FLAGGED)) != 0;
+        boolean now = (after & (REVEALED | FLAGGED)) != 0;
+        if (was == now)
+            return;
+        int opening = openingOf(cell);
+        if (opening >= 0)
+            openingTouched[opening] += now ? 1 : -1;
+    }
+
+    // the board's 3BV (Bechtel's Board Benchmark Value): the fewest left clicks that clear it,
+    // one per opening plus one per numbered tile that no opening reaches
+    // used to rate how hard a board is, and with the time or clicks taken, how well it was played
+    // worked out the first time it is asked for, from the runs of the index, or by flood filling boards too big to index
+    // returns -1 before the mines are placed
+    public int get3BV()
+    {
+        if (threeBV == -2)
+            threeBV = openingStart != null ? openingEmpty.length + cells.length - mines - aroundOpenings() : count3BV();
+        return threeBV;
+    }
 
-                            // check if the tile being traversed is within the boundaries of the board, and check if that specific tile is also a mine
-                            if (isInBounds(newRow, newColumn) && board[newRow][newColumn] == MINE)
-                                mineCount[row][column]++;
+    // 3BV without the index, flood filling every opening once over a bitmap of the tiles already seen
+    // package-private so tests can check the index against it
+    int count3BV()
+    {
+        BitSet seen = new BitSet(cells.length);
+        int[] queue = new int[64];
+        int clicks = 0;
+        for (int start = 0; start < cells.length; start++)
+        {
+            if (!isEmpty(start) || seen.get(start))
+                continue;
+            clicks++;
+            seen.set(start);
+            queue[0] = start;
+            for (int head = 0, tail = 1; head < tail; head++)
+            {
+                int cell = queue[head];
+                int row = cell / columns;
+                int column = cell % columns;
+                for (int newRow = Math.max(0, row - 1); newRow <= Math.min(rows - 1, row + 1); newRow++)
+                {
+                    for (int newColumn = Math.max(0, column - 1); newColumn <= Math.min(columns - 1, column + 1); newColumn++)
+                    {
+                        int neighbour = newRow * columns + newColumn;
+                        if (seen.get(neighbour))
+                            continue;
+                        seen.set(neighbour);
+                        if (isEmpty(neighbour))
+                        {
+                            if (tail == queue.length)
+                                queue = Arrays.copyOf(queue, queue.length * 2);
+                            queue[tail++] = neighbour;
                         }
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++)
+            if ((cells[cell] & MINE) == 0 && !seen.get(cell))
+                clicks++;
+        return clicks;
+    }
+
+    // reveals the tile and, if it has no adjacent mines, every connected empty tile and its numbered border
+    // the fill walks an explicit queue instead of recursing, so large openings can't overflow the stack
+    // returns how many tiles were revealed, the tiles themselves can be read with getChangedCell
+    public int reveal(int row, int column)
+    {
+        changedCount = 0;
+        fill(row, column);
+        return changedCount;
     }
-    
+
+    // reveals every tile around the given one as if each was clicked (used for chording)
+    // all the tiles revealed end up in the same batch of changes
+    public int revealAround(int row, int column)
+    {
+        changedCount = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (newRow != row || newColumn != column)
+                    fill(newRow, newColumn);
+        return changedCount;
+    }
+
+    // count the flags placed on the tiles around the given one
+    public int countAdjacentFlags(int row, int column)
+    {
+        int flags = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (isInBounds(newRow, newColumn) && isFlagged(newRow, newColumn))
+                    flags++;
+        return flags;
+    }
+
+    // flood fill starting at one tile, appending every tile it reveals to the current batch
+    private void fill(int row, int column)
+    {
+        // tiles out of bounds, already revealed or flagged are left alone
+        if (!isInBounds(row, column) || (cells[row * columns + column] & (REVEALED | FLAGGED)) != 0)
+            return;
+
+        // an opening none of whose empty tiles is revealed or flagged opens exactly as the fill would open it,
+        // every tile of it that isn't revealed or flagged yet, so those come straight from the index
+        int start = row * columns + column;
+        int opening = openingOf(start);
+        if (opening >= 0 && openingTouched[opening] == 0)
+        {
+            for (int i = openingStart[opening]; i < openingStart[opening + 1]; i++)
+                revealAroundRun(openingRuns[i]);
+            openingTouched[opening] = openingEmpty[opening];
+            return;
+        }
+
+        int head = changedCount;
+        push(start);
+        // a mine never spreads, and neither does a tile with a number
+        for (; head < changedCount; head++)
+        {
+            int cell = changed[head];
+            if ((cells[cell] & (MINE | COUNT_MASK)) != 0)
+                continue;
+            if (openingStart != null)
+                openingTouched[openingOf(cell)]++;
+
+            int cellRow = cell / columns;
+            int cellColumn = cell % columns;
+            for (int newRow = cellRow - 1; newRow <= cellRow + 1; newRow++)
+            {
+                for (int newColumn = cellColumn - 1; newColumn <= cellColumn + 1; newColumn++)
+                {
+                    if (isInBounds(newRow, newColumn) && (cells[newRow * columns + newColumn] & (REVEALED | FLAGGED)) == 0)
+                        push(newRow * columns + newColumn);
+                }
+            }
+        }
+    }
+
+    // reveal a run of an opening and every tile next to it, the row it is in and the rows on either side from a tile
+    // before it to a tile after it, which are all empty or numbered
+    private void revealAroundRun(int run)
+    {
+        int rowStart = runFirst[run] - runFirst[run] % columns;
+        int first = Math.max(runFirst[run] - 1, rowStart) - columns;
+        int last = Math.min(runLast[run] + 1, rowStart + columns - 1) - columns;
+        for (int row = -1; row <= 1; row++, first += columns, last += columns)
+        {
+            if (first < 0 || last >= cells.length)
+                continue;
+            for (int cell = first; cell <= last; cell++)
+                if ((cells[cell] & (REVEALED | FLAGGED)) == 0)
+                    push(cell);
+        }
+    }
+
+    // marks the tile as revealed and queues it, growing the queue only when a bigger opening than ever before comes along
+    private void push(int cell)
+    {
+        cells[cell] |= REVEALED;
+        if ((cells[cell] & MINE) == 0)
+            revealedSafeCells++;
+        queue(cell);
+    }
+
+    // append the tile to the current batch
+    private void queue(int cell)
+    {
+        if (changedCount == changed.length)
+            changed = Arrays.copyOf(changed, Math.min(changed.length * 2, cells.length));
+        changed[changedCount++] = cell;
+    }
+
+    // number of tiles the last reveal (or revealAround) changed
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    // tile changed by the last reveal, as a flat index (row * columns + column)
+    public int getChangedCell(int i) {
+        return changed[i];
+    }
+
+    // the tile as it was before the last reveal (or revealAround) changed it, in the stored layout (see getCell)
+    // a tile only gets revealed if it was hidden and unflagged, and a shield only ever goes on a tile as it is revealed,
+    // so the tile before is the tile now without those bits, and the fill doesn't have to keep a copy of every tile it reveals
+    byte getChangedBefore(int i) {
+        return (byte) (cells[changed[i]] & ~(REVEALED | FLAGGED | SHIELDED));
+    }
+
+    // a tile exactly as it is stored, mine, counts and every state bit, for putting it back later with setCell
+    byte getCell(int cell) {
+        return cells[cell];
+    }
+
+    // start a new, empty batch of changes, to be filled by setCell
+    void clearChanges() {
+        changedCount = 0;
+    }
+
+    // put a tile back to a state got from getCell, keeping the running totals right, and add it to the current batch
+    // used to undo and redo moves, so whatever shows the board updates from the batch the same way as after a reveal
+    // only the revealed, flagged and shielded bits are put back, the mine and count stay as they are now,
+    // since a flag placed before the first click was saved before the mines under it were placed
+    void setCell(int cell, byte value)
+    {
+        queue(cell);
+        byte old = cells[cell];
+        value = (byte) ((old & (MINE | COUNT_MASK)) | (value & (REVEALED | FLAGGED | SHIELDED)));
+        touched(cell, old, value);
+        if ((old & MINE) == 0 && ((old ^ value) & REVEALED) != 0)
+            revealedSafeCells += (value & REVEALED) != 0 ? 1 : -1;
+        if (((old ^ value) & FLAGGED) != 0)
+        {
+            flaggedCells += (value & FLAGGED) != 0 ? 1 : -1;
+            if ((old & MINE) != 0)
+                flaggedMines += (value & FLAGGED) != 0 ? 1 : -1;
+        }
+        if (((old ^ value) & SHIELDED) != 0)
+            shieldedCells += (value & SHIELDED) != 0 ? 1 : -1;
+        cells[cell] = value;
+    }
+
+    // number of tiles without a mine that have been revealed
+    public int getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    // number of mines that have a flag on them, including the ones auto-flagged by a shield
+    public int getFlaggedMines() {
+        return flaggedMines;
+    }
+
+    // number of flags on the board, right or wrong
+    public int getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    // number of mines a shield protected the player from, each of them also has a flag on it
+    public int getShieldedCells() {
+        return shieldedCells;
+    }
+
+    // the board is cleared once every free tile is revealed, or every mine is flagged (alternate victory)
+    public boolean isCleared() {
+        return revealedSafeCells == rows * columns - mines || flaggedMines == mines;
+    }
+
     // check if tile is in board bounds
     //necessary function as a problem arised when trying to find the adjacent tiles of a tile that was at frame border
     public boolean isInBounds(int row, int column) {
-        return row >= 0 && row < size && column >= 0 && column < size;
+        return row >= 0 && row < rows && column >= 0 && column < columns;
     }
 
     // get the number of mines
     public int getMineCount(int row, int column) {
-        return mineCount[row][column];
+        return cells[row * columns + column] & COUNT_MASK;
     }
-    
+
     // check if the tile is revealed
     public boolean isRevealed(int row, int column) {
-        return revealed[row][column];
+        return (cells[row * columns + column] & REVEALED) != 0;
     }
-    
+
     // function that reveals the current tile
-    public void setRevealed(int row, int column, boolean value) {
-        revealed[row][column] = value;
+    public void setRevealed(int row, int column, boolean value)
+    {
+        // only count the tile if its state actually changes
+        if (isRevealed(row, column) != value && !isMine(row, column))
+            revealedSafeCells += value ? 1 : -1;
+        int cell = row * columns + column;
+        byte before = cells[cell];
+        setBit(cell, REVEALED, value);
+        touched(cell, before, cells[cell]);
     }
-    
+
     // check if tile is flagged
     public boolean isFlagged(int row, int column) {
-        return flagged[row][column];
+        return (cells[row * columns + column] & FLAGGED) != 0;
     }
 
     // function that sets the current tile as flagged
-    public void setFlagged(int row, int column, boolean value) {
-        flagged[row][column] = value;
+    public void setFlagged(int row, int column, boolean value)
+    {
+        // only count the tile if its state actually changes
+        if (isFlagged(row, column) != value)
+        {
+            flaggedCells += value ? 1 : -1;
+            if (isMine(row, column))
+                flaggedMines += value ? 1 : -1;
+        }
+        int cell = row * columns + column;
+        byte before = cells[cell];
+        setBit(cell, FLAGGED, value);
+        touched(cell, before, cells[cell]);
+    }
+
+    // check if a shield was used up on this tile
+    public boolean isShielded(int row, int column) {
+        return (cells[row * columns + column] & SHIELDED) != 0;
+    }
+
+    // function that marks the current tile as the one a shield protected the player from
+    public void setShielded(int row, int column, boolean value)
+    {
+        int cell = row * columns + column;
+        if (((cells[cell] & SHIELDED) != 0) != value)
+            shieldedCells += value ? 1 : -1;
+        setBit(cell, SHIELDED, value);
     }
-    
+
     // check if tile has a mine
     public boolean isMine(int row, int column) {
-        return board[row][column] == MINE;
+        return (cells[row * columns + column] & MINE) != 0;
     }
-    
-    // get the size of the board
-    public int getSize() {
-        return size;
+
+    // turns a single bit of a tile on or off, leaving the rest of the tile untouched
+    private void setBit(int index, int bit, boolean value)
+    {
+        if (value)
+            cells[index] |= bit;
+        else
+            cells[index] &= ~bit;
     }
-    
+
+    // the tiles as they are stored, one byte each, row by row (read only), used for saving the board as it is
+    ByteBuffer getCells() {
+        return ByteBuffer.wrap(cells).asReadOnlyBuffer();
+    }
+
+    // overwrite every tile with the next rows * columns bytes of the buffer, in the layout getCells gives them out in
+    // the buffer is copied straight into the tile array in one go, then the mine list and the running totals are rebuilt from it
+    // returns the number of mines found on the tiles, so whoever restores them can check it against what they expected
+    int restoreCells(ByteBuffer source, long seed)
+    {
+        source.get(cells);
+        this.seed = seed;
+
+        int minesFound = 0;
+        revealedSafeCells = 0;
+        flaggedMines = 0;
+        flaggedCells = 0;
+        shieldedCells = 0;
+        for (byte cell : cells)
+        {
+            if ((cell & MINE) != 0)
+                minesFound++;
+            else if ((cell & REVEALED) != 0)
+                revealedSafeCells++;
+            if ((cell & FLAGGED) != 0)
+            {
+                flaggedCells++;
+                if ((cell & MINE) != 0)
+                    flaggedMines++;
+            }
+            if ((cell & SHIELDED) != 0)
+                shieldedCells++;
+        }
+
+        // the mines haven't been placed yet if the game was saved before the first click
+        mineCells = new int[minesFound];
+        for (int cell = 0, i = 0; i < minesFound; cell++)
+            if ((cells[cell] & MINE) != 0)
+                mineCells[i++] = cell;
+        changedCount = 0;
+        if (minesFound > 0)
+            indexOpenings();
+        else
+            clearOpenings();
+        return minesFound;
+    }
+
+    // get the number of rows of the board
+    public int getRows() {
+        return rows;
+    }
+
+    // get the number of columns of the board
+    public int getColumns() {
+        return columns;
+    }
+
     // get the number of mines on the board
     public int getMines() {
         return mines;
     }
-}
\ No newline at end of file
+
+    // get the seed the mines were placed from
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,76 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder events for the hot paths, committed alongside the Metrics recordings (so only when metrics are on)
+// record with: java -Dminesweeper.metrics=true -XX:StartFlightRecording=filename=minesweeper.jfr MinesweeperGUI
+public class MinesweeperEvents
+{
+    @Name("minesweeper.ClickToPaint")
+    @Label("Click to Paint")
+    @Category("Minesweeper")
+    public static class ClickToPaint extends Event
+    {
+        @Label("Tiles Painted")
+        public int tiles;
+    }
+
+    @Name("minesweeper.Cascade")
+    @Label("Cascade Reveal")
+    @Category("Minesweeper")
+    public static class Cascade extends Event
+    {
+        @Label("Tiles Revealed")
+        public int tiles;
+    }
+
+    @Name("minesweeper.PlaceMines")
+    @Label("Place Mines")
+    @Category("Minesweeper")
+    public static class PlaceMines extends Event
+    {
+        @Label("Rows")
+        public int rows;
+        @Label("Columns")
+        public int columns;
+        @Label("Mines")
+        public int mines;
+    }
+
+    @Name("minesweeper.IconScale")
+    @Label("Icon Scale")
+    @Category("Minesweeper")
+    public static class IconScale extends Event
+    {
+        @Label("Width")
+        public int width;
+        @Label("Height")
+        public int height;
+    }
+
+    @Name("minesweeper.SoundOpen")
+    @Label("Sound Open")
+    @Category("Minesweeper")
+    public static class SoundOpen extends Event
+    {
+        @Label("Sound")
+        public String sound;
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("minesweeper.EdtStall")
+    @Label("Event Thread Stall")
+    @Category("Minesweeper")
+    // runs from the tick before the stall to the late tick, so it covers the stall as it happened
+    public static class EdtStall extends Event
+    {
+        @Label("Lateness")
+        @Timespan(Timespan.NANOSECONDS)
+        public long late;
+    }
+}
@@ -2,45 +2,70 @@ import javax.swing.border.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import javax.sound.sampled.*;
-import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Random;
 
-public class MinesweeperGUI extends JFrame implements ActionListener
+public class MinesweeperGUI extends JFrame
 {
-    private MinesweeperBoard board; // MinesweeperBoard class
-    private JButton[][] buttons; // 2D Array of buttons
+    // plays the game on its own thread, the window only posts clicks to it and shows the batches of changes it sends back
+    private GameActor actor;
+    // the sprite every tile shows, only ever read and written on the event dispatch thread
+    private byte[] view;
+    // the board as of the last batch
+    private int rows, columns, mines;
+    private BoardCanvas canvas; // draws the tiles and turns mouse clicks into tile clicks
+    private RevealScheduler reveals; // shows big changes to the view over a few frames, spreading out from the click
+    private JScrollPane scrollPane; // scrolls the board when it doesn't fit in the window
     private JFrame frame = new JFrame("Minesweeper"); // frame
     private JMenuBar menuBar = new JMenuBar(); // menu bar
     private JMenu gameMenu = new JMenu("Menu"); // menu
     // menu elements (for difficulties and restart)
     private JMenuItem helpMenuItem = new JMenuItem("Help"); 
+    private JMenuItem hintMenuItem = new JMenuItem("Hint");
     private JMenuItem easyMenuItem = new JMenuItem("Easy");
     private JMenuItem mediumMenuItem = new JMenuItem("Medium");
     private JMenuItem hardMenuItem = new JMenuItem("Hard");
+    private JMenuItem customMenuItem = new JMenuItem("Custom...");
+    private JMenuItem infiniteMenuItem = new JMenuItem("Infinite...");
+    private JMenuItem zoomInMenuItem = new JMenuItem("Zoom in");
+    private JMenuItem zoomOutMenuItem = new JMenuItem("Zoom out");
     private JMenuItem restartMenuItem = new JMenuItem("Restart");
+    private JMenuItem seedMenuItem = new JMenuItem("Play seed...");
+    private JCheckBoxMenuItem noGuessMenuItem = new JCheckBoxMenuItem("No-guess boards");
+    private JCheckBoxMenuItem practiceMenuItem = new JCheckBoxMenuItem("Practice mode");
+    private JMenuItem undoMenuItem = new JMenuItem("Undo");
+    private JMenuItem redoMenuItem = new JMenuItem("Redo");
+    private JMenuItem saveMenuItem = new JMenuItem("Save game...");
+    private JMenuItem loadMenuItem = new JMenuItem("Load game...");
     private JLabel flagsLabel; // Label to display number of flags
-    private int flagsAvailable; // Number of flags available
-    private boolean firstClick; // flag for first click (for mine generation)
     private Timer timer; // Timer to track the time
     private JLabel timerLabel = new JLabel("Time: 00:00:00:00"); // Label to display the timer
 
     private JLabel shieldsLabel; // Label to display number of shields
-    private int shieldsAvailable; // Number of shields available
-
-    // external icons for shield, mine, flag, and tiles
-    private ImageIcon unrevealedIcon = new ImageIcon("../resources/icons/unrevealed_tile.png");
-    private ImageIcon revealedIcon = new ImageIcon("../resources/icons/revealed_tile.png");
-    private ImageIcon flagIcon = new ImageIcon("../resources/icons/flag_icon.png");
-    private ImageIcon wrongFlagIcon = new ImageIcon("../resources/icons/wrong_flag_icon.png");
-    private ImageIcon mineIcon = new ImageIcon("../resources/icons/mine_icon.png");
-    private ImageIcon mineClickedIcon = new ImageIcon("../resources/icons/mine_clicked_icon.png");
-    private ImageIcon shieldIcon = new ImageIcon("../resources/icons/shield_icon.png");
-    private ImageIcon numberIcon;
-    private Image variableImage;
+    // shown while no-guess boards are on but the board is a normal one, because none turned up in time
+    private JLabel guessingLabel = new JLabel("Normal board");
+
+    // the infinite mode plays in a window of its own, made the first time it is opened
+    private JFrame infiniteFrame;
+    private InfiniteCanvas infiniteCanvas;
+    private JLabel infiniteLabel;
+
+    // external icons for shield, mine, flag, number and tiles
+    // decoded in parallel in the background while the window is built, and kept pre-scaled to the tile size
+    private SpriteCache sprites = new SpriteCache();
 
     private long startTime = 0, currentTime = 0, elapsedTime = 0;
 
+    // every game is recorded here as a move log, which MoveLogReader can replay
+    // it is in the player's home folder, so it is the same wherever the game is started from; set with -Dminesweeper.logs=<folder>
+    private static final Path LOG_DIRECTORY = Paths.get(System.getProperty("minesweeper.logs",
+        Paths.get(System.getProperty("user.home"), ".minesweeper", "logs").toString()));
+
+    // biggest board side the custom difficulty allows
+    private static final int MAX_SIDE = 10000;
+
     private String message = "Welcome to the Minesweeper game!\n\n"
     + "Here's all what you need to know about this game:\n"
     + "1. The board will generate tiles for you to click on.\n"
@@ -51,9 +76,25 @@ public class MinesweeperGUI extends JFrame implements ActionListener
     + "- The initial total number of flags represents the number of mines on the board.\n"
     + "- The total number of mines on the board is also indicated in the difficulty descriptions.\n"
     + "- You start with 2 shields; if you click on a mine accidentally, they will protect you.\n"
-    + "- Once all shields are depleted, you will lose if you click on a mine again.\n\n"
+    + "- Once all shields are depleted, you will lose if you click on a mine again.\n"
+    + "- Clicking on a number whose mines are all flagged reveals every other tile around it.\n"
+    + "- Every board has a seed, shown when the game ends; the same seed and first click give the same board.\n\n"
     + "Good luck playing!";
 
+    // every sound effect, decoded once and kept ready to play
+    private SoundBank sounds = new SoundBank();
+
+    // variations of block hit/ mine hit sounds
+    private static final String[] blockHitSounds = {
+        "Block/BlockReveala.wav",
+        "Block/BlockRevealb.wav"
+    };
+    private static final String[] mineHitSounds = {
+        "Explosion/BlockExploa.wav",
+        "Explosion/BlockExplob.wav",
+        "Explosion/BlockExploc.wav"
+    };
+
     // Randomize sound effect for opening up a tile
     private Random random = new Random();
 
@@ -69,69 +110,134 @@ public class MinesweeperGUI extends JFrame implements ActionListener
 
         // tooltips for the menu settings (hovering the mouse over the buttons reveals the text desc)
         helpMenuItem.setToolTipText("Display the game info on a seperate screen");
+        hintMenuItem.setToolTipText("Outline a safe tile, or the one least likely to be a mine");
         restartMenuItem.setToolTipText("Restart the game (current difficulty level)");
+        seedMenuItem.setToolTipText("Play a board from its seed (current difficulty level)");
+        noGuessMenuItem.setToolTipText("Only generate boards that can be cleared without guessing");
+        practiceMenuItem.setToolTipText("Allow moves to be undone and redone, practice games aren't recorded");
+        undoMenuItem.setToolTipText("Take back the last move (practice mode)");
+        redoMenuItem.setToolTipText("Play the last undone move again (practice mode)");
+        undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+        redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+        saveMenuItem.setToolTipText("Save the game to a file to carry on with later");
+        loadMenuItem.setToolTipText("Carry on with a saved game");
         easyMenuItem.setToolTipText("Play on easy mode (5x5 grid, 5 mines)");
         mediumMenuItem.setToolTipText("Play on medium mode (10x10 grid, 20 mines)");
         hardMenuItem.setToolTipText("Play on hard mode (15x15 grid, 45 mines)");
+        customMenuItem.setToolTipText("Play on a board of any size, up to " + MAX_SIDE + "x" + MAX_SIDE);
+        infiniteMenuItem.setToolTipText("Play on a board without edges until a mine is hit, drag to move around");
+        zoomInMenuItem.setToolTipText("Make the tiles bigger (or hold ctrl and turn the mouse wheel)");
+        zoomOutMenuItem.setToolTipText("Make the tiles smaller (or hold ctrl and turn the mouse wheel)");
+        zoomInMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, InputEvent.CTRL_DOWN_MASK));
+        zoomOutMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, InputEvent.CTRL_DOWN_MASK));
 
         // method references to the Action Listener
         helpMenuItem.addActionListener(this::help);
+        hintMenuItem.addActionListener(this::hint);
         easyMenuItem.addActionListener(this::diffEasy);
         mediumMenuItem.addActionListener(this::diffMedium);
         hardMenuItem.addActionListener(this::diffHard);
+        customMenuItem.addActionListener(this::diffCustom);
+        infiniteMenuItem.addActionListener(this::playInfinite);
+        zoomInMenuItem.addActionListener(e -> canvas.zoomIn());
+        zoomOutMenuItem.addActionListener(e -> canvas.zoomOut());
         restartMenuItem.addActionListener(this::restartCurrent);
+        seedMenuItem.addActionListener(this::playSeed);
+        noGuessMenuItem.addActionListener(e -> actor.setNoGuess(noGuessMenuItem.isSelected()));
+        practiceMenuItem.addActionListener(e -> actor.setPractice(practiceMenuItem.isSelected()));
+        undoMenuItem.addActionListener(e -> actor.undo());
+        redoMenuItem.addActionListener(e -> actor.redo());
+        saveMenuItem.addActionListener(this::saveGame);
+        loadMenuItem.addActionListener(this::loadGame);
 
         // add items to the game menu
         gameMenu.add(helpMenuItem);
+        gameMenu.add(hintMenuItem);
         gameMenu.addSeparator();
         gameMenu.add(easyMenuItem);
         gameMenu.add(mediumMenuItem);
         gameMenu.add(hardMenuItem);
+        gameMenu.add(customMenuItem);
+        gameMenu.add(infiniteMenuItem);
+        gameMenu.add(noGuessMenuItem);
+        gameMenu.addSeparator();
+        gameMenu.add(practiceMenuItem);
+        gameMenu.add(undoMenuItem);
+        gameMenu.add(redoMenuItem);
         gameMenu.addSeparator();
         gameMenu.add(restartMenuItem);
+        gameMenu.add(seedMenuItem);
+        gameMenu.addSeparator();
+        gameMenu.add(saveMenuItem);
+        gameMenu.add(loadMenuItem);
+        gameMenu.addSeparator();
+        gameMenu.add(zoomInMenuItem);
+        gameMenu.add(zoomOutMenuItem);
     
+        // nothing to undo or redo until practice mode is on and a move has been made
+        undoMenuItem.setEnabled(false);
+        redoMenuItem.setEnabled(false);
         menuBar.add(gameMenu);
     
-        frame.setPreferredSize(new Dimension(520, 600));
-        frame.setResizable(false);
         frame.setJMenuBar(menuBar);
 
         // panel for the flag counter
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        flagsLabel = new JLabel("Flags remaining: " + flagsAvailable); // Initialize flags label
-        shieldsLabel = new JLabel("Shields remaining: " + shieldsAvailable); // Initialize shields label
+        flagsLabel = new JLabel("Flags remaining: " + mines); // Initialize flags label
+        shieldsLabel = new JLabel("Shields remaining: " + MinesweeperGame.STARTING_SHIELDS); // Initialize shields label
 
         flagsLabel.setBorder(new EmptyBorder(0, 20, 0, 20)); // Add spacing
         shieldsLabel.setBorder(new EmptyBorder(0, 20, 0, 20)); // Add spacing
         timerLabel.setBorder(new EmptyBorder(0, 20, 0, 20)); // Add spacing
+        guessingLabel.setBorder(new EmptyBorder(0, 20, 0, 20));
+        guessingLabel.setToolTipText("No board that can be cleared without guessing was found in time, this one may need a guess");
+        guessingLabel.setVisible(false);
 
         // add panel elements
         topPanel.add(flagsLabel);
         topPanel.add(timerLabel);
         topPanel.add(shieldsLabel);
+        topPanel.add(guessingLabel);
         frame.add(topPanel, BorderLayout.NORTH);
 
-        // panel size based on board size
-        JPanel centerPanel = new JPanel(new GridLayout(board.getSize(), board.getSize()));
-        initializeButtons(board.getSize(), centerPanel);
-        frame.add(centerPanel, BorderLayout.CENTER);
+        // the board itself, in a scroll pane that starts out big enough for a small board and can be resized
+        initializeCanvas(rows, columns);
+        frame.add(scrollPane, BorderLayout.CENTER);
 
-        // resize the frame automatically based on the components available
+        // size the frame to the board, a big board is shown in part and scrolled
         frame.pack();
         //center frame to center of the screen
         frame.setLocationRelativeTo(null);
+        // latency and frame rate readout, only when started with -Dminesweeper.metrics=true
+        if (Metrics.ENABLED)
+        {
+            // over the board in the top left corner, it sizes itself to its text
+            frame.getLayeredPane().add(new MetricsOverlay(), JLayeredPane.PALETTE_LAYER);
+        }
+
         // make everything visible
         frame.setVisible(true);
     }
 
     private void getBoard(int size, int mines)
     {
-        // new instance of the Board class
-        board = new MinesweeperBoard(size, mines);
-        buttons = new JButton[size][size];
-        flagsAvailable = mines; // Initialize flags available
-        shieldsAvailable = 2; // Initialize shields available
-        firstClick = true;
+        // the game thread, which creates the board and sets up the flags and shields
+        rows = size;
+        columns = size;
+        this.mines = mines;
+        view = new byte[size * size];
+        actor = new GameActor(size, size, mines, LOG_DIRECTORY, new GameActor.Listener()
+        {
+            @Override
+            public void applied(GameActor.ChangeBatch batch) {
+                applyBatch(batch);
+            }
+
+            @Override
+            public void failed(String message) {
+                JOptionPane.showMessageDialog(frame, message);
+            }
+        });
 
         // Initialize the timer
         int timerDelay = 10; // milliseconds
@@ -177,428 +283,365 @@ public class MinesweeperGUI extends JFrame implements ActionListener
     // med 15x15 board
     // hard 20x20 board
     private void diffEasy(ActionEvent e) {
-        restartGame(10, 10);
+        restartGame(10, 10, 10);
     }
     
     private void diffMedium(ActionEvent e) {
-        restartGame(15, 20);
+        restartGame(15, 15, 20);
     }
     
     private void diffHard(ActionEvent e) {
-        restartGame(20, 60);
+        restartGame(20, 20, 60);
+    }
+
+    // any number of rows, columns and mines, asked for in a dialog
+    private void diffCustom(ActionEvent e)
+    {
+        JTextField rowsField = new JTextField(String.valueOf(rows));
+        JTextField columnsField = new JTextField(String.valueOf(columns));
+        JTextField minesField = new JTextField(String.valueOf(mines));
+        JPanel panel = new JPanel(new GridLayout(3, 2, 8, 4));
+        panel.add(new JLabel("Rows:"));
+        panel.add(rowsField);
+        panel.add(new JLabel("Columns:"));
+        panel.add(columnsField);
+        panel.add(new JLabel("Mines:"));
+        panel.add(minesField);
+        if (JOptionPane.showConfirmDialog(frame, panel, "Custom board", JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE) != JOptionPane.OK_OPTION)
+            return;
+
+        try {
+            int rows = Integer.parseInt(rowsField.getText().trim());
+            int columns = Integer.parseInt(columnsField.getText().trim());
+            int mines = Integer.parseInt(minesField.getText().trim());
+            if (rows < 1 || rows > MAX_SIDE || columns < 1 || columns > MAX_SIDE)
+                JOptionPane.showMessageDialog(frame, "Rows and columns must be between 1 and " + MAX_SIDE + ".");
+            else if (mines < 1 || mines >= rows * columns)
+                JOptionPane.showMessageDialog(frame, "There must be at least 1 mine and at least 1 free tile.");
+            else
+                restartGame(rows, columns, mines);
+        }
+        catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Rows, columns and mines must be whole numbers.");
+        }
     }
     
+    // open the infinite mode's window, or bring it to the front with its game as it was
+    private void playInfinite(ActionEvent e)
+    {
+        if (infiniteFrame == null)
+        {
+            infiniteLabel = new JLabel();
+            infiniteCanvas = new InfiniteCanvas(random.nextLong(), sprites.withOwnSize(), this::infiniteChanged);
+            JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+            topPanel.add(infiniteLabel);
+
+            infiniteFrame = new JFrame("Minesweeper - Infinite");
+            infiniteFrame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+            infiniteFrame.setLayout(new BorderLayout());
+            infiniteFrame.add(topPanel, BorderLayout.NORTH);
+            infiniteFrame.add(infiniteCanvas, BorderLayout.CENTER);
+            infiniteChanged(null);
+            infiniteFrame.pack();
+            infiniteFrame.setLocationRelativeTo(frame);
+        }
+        infiniteFrame.setVisible(true);
+        infiniteFrame.toFront();
+    }
+
+    // show what a move in the infinite mode did, and start a new world once a mine is hit
+    private void infiniteChanged(MinesweeperGame.Outcome outcome)
+    {
+        ChunkedBoard board = infiniteCanvas.getBoard();
+        infiniteLabel.setText("Tiles revealed: " + board.getRevealedSafeCells() + "    Flags placed: " + board.getFlaggedCells());
+        if (outcome == null)
+            return;
+        switch (outcome)
+        {
+            case REVEALED:
+                playBlockHitSound();
+                break;
+            case FLAG_PLACED:
+                playSound("Flag/FlagPlaced.wav");
+                break;
+            case FLAG_REMOVED:
+                playSound("Flag/FlagRemoved.wav");
+                break;
+            case LOST:
+                playMineHitSound();
+                JOptionPane.showMessageDialog(infiniteFrame, "Game Over! You clicked on a mine.\nTiles revealed: "
+                    + board.getRevealedSafeCells() + "\nSeed: " + board.getSeed());
+                infiniteCanvas.newWorld(random.nextLong());
+                infiniteChanged(null);
+                break;
+            default:
+                break;
+        }
+    }
+
     private void restartCurrent(ActionEvent e) {
-        restartGame(board.getSize(), board.getMines());
+        restartGame(rows, columns, mines);
     }
     
-    private void help(ActionEvent e) {    
-        JOptionPane.showMessageDialog(this, message, "Help", JOptionPane.INFORMATION_MESSAGE);
+    // restart on a board from a seed, e.g. one shown at the end of an earlier game
+    private void playSeed(ActionEvent e)
+    {
+        String input = JOptionPane.showInputDialog(frame, "Enter the seed of the board to play:", "Play seed", JOptionPane.QUESTION_MESSAGE);
+        if (input == null)
+            return;
+
+        try {
+            actor.restart(rows, columns, mines, Long.parseLong(input.trim()));
+        }
+        catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "\"" + input + "\" is not a valid seed.");
+        }
     }
 
-    private void initializeButtons(int size, JPanel panel)
+    // write the game and the time on the clock to a file picked by the player
+    private void saveGame(ActionEvent e)
     {
-        // needed to set all buttons back to blank 
-        panel.removeAll();
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION)
+            return;
 
-        // Check if size matches the dimensions of buttons array
-        // Resize buttons depending on size of the frame
-        if (buttons.length != size || buttons[0].length != size)
-            buttons = new JButton[size][size];
+        if (timer.isRunning())
+            calculateElapsedTime();
+        actor.save(chooser.getSelectedFile().toPath(), elapsedTime);
+    }
 
-        // create a new button, for loops depending on the difficulty aka board/array size
-        for (int row = 0; row < size; row++)
-        {
-            for (int column = 0; column < size; column++)
-            {
-                // new button instance
-                buttons[row][column] = new JButton();
-                // preferred size for buttons initially before resizing
-                buttons[row][column].setPreferredSize(new Dimension(50, 50));
-                // don't use java's button texture or border, instead we want our own images and style
-                buttons[row][column].setContentAreaFilled(false);
-                buttons[row][column].setBorderPainted(false);
-                // set button to our icon
-                buttons[row][column].setIcon(unrevealedIcon);
-                // button clicked by left or right mouse button has 2 different functions
-                // left mouse button to reveal the tile
-                // right mouse to place or remove a flag
-
-                // row and column variables must be final
-                final int final_row = row;
-                final int final_column = column;
-
-                buttons[row][column].addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mousePressed(MouseEvent evt) {
-                        if (SwingUtilities.isRightMouseButton(evt)) {
-                            flagCell(final_row, final_column);
-                        }
-                    }
-                });
-
-                buttons[row][column].addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent e) {
-                        handleButtonClick(final_row, final_column);
-                    }
-                });
-
-                // add button to panel
-                panel.add(buttons[row][column]);
-            }
-        }
+    // carry on with a saved game, the clock picks up from where it was
+    private void loadGame(ActionEvent e)
+    {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION)
+            return;
 
-        panel.addComponentListener(new ComponentAdapter()
-        {
-            @Override
-            public void componentResized(ComponentEvent e) {
-                resizeIcons();
-            }
-        });
+        actor.load(chooser.getSelectedFile().toPath());
+    }
+
+    private void help(ActionEvent e) {    
+        JOptionPane.showMessageDialog(this, message, "Help", JOptionPane.INFORMATION_MESSAGE);
+    }
 
-        // repaint and redraw frame
-        frame.revalidate();
-        frame.repaint();
+    // outline the tile the solver thinks is best to click next
+    private void hint(ActionEvent e) {
+        actor.hint();
     }
 
-    private void resizeIcons()
+    private void initializeCanvas(int rows, int columns)
     {
-        int iconSize = buttons[0][0].getWidth();
-        for (int row = 0; row < board.getSize(); row++)
+        // reuse the board view if there already is one, it only needs to be told the board changed
+        if (canvas != null)
         {
-            for (int column = 0; column < board.getSize(); column++)
-            {
-                if (!board.isRevealed(row, column) && !board.isFlagged(row, column))
-                {
-                    // If the cell is unrevealed and not flagged, resize the unrevealed icon
-                    variableImage = unrevealedIcon.getImage().getScaledInstance(iconSize, iconSize, Image.SCALE_SMOOTH);
-                    buttons[row][column].setIcon(new ImageIcon(variableImage));
-                }
-            }
+            canvas.reset(rows, columns);
+            return;
         }
-    }
 
-    @Override
-    public void actionPerformed(ActionEvent e)
-    {
-        JButton clickedButton = (JButton) e.getSource();
-        for (int row = 0; row < board.getSize(); row++)
+        // tile clicked by left or right mouse button has 2 different functions
+        // left mouse button to reveal the tile
+        // right mouse to place or remove a flag
+        canvas = new BoardCanvas(rows, columns, sprites, this::spriteAt, new BoardCanvas.CellListener()
         {
-            for (int column = 0; column < board.getSize(); column++)
-            {
-                if (buttons[row][column] == clickedButton)
-                {
-                    handleButtonClick(row, column);
-                    return;
-                }
+            @Override
+            public void cellClicked(int row, int column) {
+                actor.click(row, column);
             }
-        }
+
+            @Override
+            public void cellFlagged(int row, int column) {
+                actor.flag(row, column);
+            }
+        });
+        scrollPane = new JScrollPane(canvas);
+        reveals = new RevealScheduler(canvas);
+    }
+
+    // the sprite a tile shows, as of the last batch from the game thread
+    private int spriteAt(int row, int column) {
+        return view[row * columns + column];
     }
 
     // handles audio events
-    // checking if audio exists, if not throw exception
-    private void playSound(String soundFileName)
-    {
-        try {
-            File soundFile = new File(soundFileName);
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(soundFile);
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            clip.start();
-        }
-        catch (UnsupportedAudioFileException | IOException | LineUnavailableException ex) {
-            ex.printStackTrace();
-        }
+    // sounds are loaded once at startup, playing one just restarts an already open clip
+    private void playSound(String soundFileName) {
+        sounds.play(soundFileName);
     }
 
     // sound handling for different variations of block hit/ mine hit
     private void playBlockHitSound() {
-        String[] blockHitSounds =
-        {
-            "../resources/audio/Block/BlockReveala.wav",
-            "../resources/audio/Block/BlockRevealb.wav"
-        };
         int index = random.nextInt(blockHitSounds.length);
         playSound(blockHitSounds[index]);
     }
 
     private void playMineHitSound() {
-        String[] mineHitSounds = {
-            "../resources/audio/Explosion/BlockExploa.wav",
-            "../resources/audio/Explosion/BlockExplob.wav",
-            "../resources/audio/Explosion/BlockExploc.wav"
-        };
         int index = random.nextInt(mineHitSounds.length);
         playSound(mineHitSounds[index]);
     }
 
-    private void handleButtonClick(int row, int column)
+    // show what one event on the game thread changed, the only place the window learns anything about the game
+    // the batch has the sprites already worked out, so this copies them into the view and repaints the area around them,
+    // or swaps in a whole new view after a big opening or the end of a game
+    private void applyBatch(GameActor.ChangeBatch batch)
     {
-        // depending on row or column
-        // if the click on the board is the very first click, the mines then generate after the first click
-        // this was done to prevent mines from generating before the first click and player losing instantly
-        // also starts the timer
-        if (firstClick)
-        {
-            //placeMines function from the constructor is called to place mines if the first click is registered
-            board.placeMines(row, column);
-            firstClick = false;
-            startTime = System.nanoTime();
-            timer.start();
-        }
-        //this flag is necessary in order to prevent the user from left-clicking a flagged mine and losing
-        if (!board.isFlagged(row, column))
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        boolean resized = batch.rows != rows || batch.columns != columns;
+        rows = batch.rows;
+        columns = batch.columns;
+        mines = batch.mines;
+
+        // the game thread has already made the whole change, only showing it may be spread over the next frames
+        if (batch.newGame)
+            reveals.cancel();
+        if (batch.view != null)
         {
-            // Check if the tile is not already revealed
-            if (!board.isRevealed(row, column))
+            // the game thread is done with the array once it is sent, so it becomes the view as it is,
+            // or is copied into the old one ring by ring from the click
+            if (resized)
             {
-                // Update the icon of the clicked tile
-                revealCell(row, column);
-
-                if (isGameWon())
-                {
-                    timer.stop();
-                    // reveal all the tiles when the round ends and then restart the board
-                    revealAllCells();
-                    playSound("../resources/audio/Victory.wav"); // Play victory sound
-                    JOptionPane.showMessageDialog(null, "Congratulations! You won the game without stepping on any mines!");
-                    restartGame(board.getSize(), board.getMines());
-                }
-                else if (board.isMine(row, column))
-                {
-                    if (shieldsAvailable > 0)
-                    {
-                        playSound("../resources/audio/Shield_Triggered.wav"); // play shield sound effect
-                        shieldsAvailable--; // Use a shield
-                        board.setFlagged(row, column, true); // Auto-flag the mine so the user can no longer click on it
-                        flagsLabel.setText("Flags remaining: " + flagsAvailable); // Update flags label
-                        shieldsLabel.setText("Shields remaining: " + shieldsAvailable); // Update shields label
-                    }
-                }
-                else
-                    playBlockHitSound();
+                view = batch.view;
+                canvas.reset(rows, columns);
+                canvas.repaint();
             }
+            else
+                view = reveals.showView(batch.newGame ? null : view, batch.view, rows, columns, batch.origin);
         }
-    }
-
-    // handles the tile when clicked, the contents are revealed
-    private void revealCell(int row, int column)
-    {
-        // if the board is already revealed or flagged, do nothing
-        // also double checks if the board is within the array and not out of bounds, used as a double checker 
-        if (!board.isInBounds(row, column) || board.isRevealed(row, column) || board.isFlagged(row, column))
-            return;
-
-        // reveal the tile
-        board.setRevealed(row, column, true);
-
-        // if the tile is a mine at pos, then change the icon to a mine icon
-        if (board.isMine(row, column))
+        else if (batch.newGame)
         {
-            // however use shield icon if shield available
-            if (shieldsAvailable > 0)
-            {
-                variableImage = shieldIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                buttons[row][column].setIcon(new ImageIcon(variableImage));
-            }
+            // every tile hidden again, the array is reused when the board is the same size
+            if (resized)
+                view = new byte[rows * columns];
             else
-            {
-                // handles game loss
-                // highlight selected mine, and reveal all the board along with displaying message to the player
-                variableImage = mineClickedIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                buttons[row][column].setIcon(new ImageIcon(variableImage));
-                timer.stop();
-                revealAllCells();
-                playMineHitSound();
-                JOptionPane.showMessageDialog(frame, "Game Over! You clicked on a mine.");
-                restartGame(board.getSize(), board.getMines());
-            }
+                Arrays.fill(view, (byte) SpriteCache.UNREVEALED);
         }
         else
+            reveals.showCells(view, rows, columns, batch.cells, batch.sprites, batch.origin);
+        if (batch.newGame)
         {
-            // else calculate the remaining mine count
-            // if the tile does not have any adjacent mines, it is an empty tile
-            if (board.getMineCount(row, column) == 0)
-            {
-                // Set the icon to the revealed tile icon for empty tiles
-                variableImage = revealedIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                buttons[row][column].setIcon(new ImageIcon(variableImage));
-
-                // all adjacent directions are checked by 1, recursively, if there are more tiles without any mines next to them
-                int[] directions = {-1, 0, 1};
-                for (int direction_row : directions)
-                {
-                    for (int direction_column : directions)
-                    {
-                        if (direction_row != 0 || direction_column != 0)
-                            revealCell(row + direction_row, column + direction_column); // Recursively reveal adjacent tiles
-                    }
-                }
-            }
-            else
-            {
-                // Display the number on the tile that is adjacent to the mine
-                numberIcon = new ImageIcon("../resources/icons/number_" + board.getMineCount(row, column) + ".png");
-                variableImage = numberIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                buttons[row][column].setIcon(new ImageIcon(variableImage));
-            }
+            initializeCanvas(rows, columns); // Set every tile back to blank
+            noGuessMenuItem.setSelected(batch.noGuess);
+        }
+        else if (batch.highlight >= 0)
+            canvas.setHighlight(batch.highlight / columns, batch.highlight % columns);
+        else
+            canvas.setHighlight(-1, -1);
+
+        flagsLabel.setText("Flags remaining: " + batch.flags); // Update flags label
+        shieldsLabel.setText("Shields remaining: " + batch.shields); // Update shields label
+        guessingLabel.setVisible(batch.guessing);
+        undoMenuItem.setEnabled(batch.canUndo);
+        redoMenuItem.setEnabled(batch.canRedo);
+        updateClock(batch);
+        if (Metrics.ENABLED)
+        {
+            Metrics.APPLY.record(System.nanoTime() - start);
+            if (batch.outcome != null)
+                Metrics.CLICK_TO_BATCH.record(start - batch.postedNanos);
         }
-    }
 
-    // reveal all the tiles in the entire board when the round ends whether a win or lose
-    // this function is responsible for that as well as handling the images that show for each respective tile
-    private void revealAllCells()
-    {
-        for (int row = 0; row < board.getSize(); row++)
+        // a mine was hit but a shield protected the player, the game auto-flagged the mine
+        if (batch.shieldUsed)
+            playSound("Shield_Triggered.wav"); // play shield sound effect
+        if (batch.outcome == null)
+            return;
+        switch (batch.outcome)
         {
-            for (int column = 0; column < board.getSize(); column++)
-            {
-                if (!board.isRevealed(row, column))
-                {
-                    //if tile is a mine and isnt flagged, just reveal the mine at the end of the game
-                    if (board.isMine(row, column))
-                    {
-                        if (!board.isFlagged(row, column))
-                        {
-                            variableImage = mineIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                            buttons[row][column].setIcon(new ImageIcon(variableImage));
-                        }
-                    }
-                    else if (board.isFlagged(row, column))
-                    {
-                        // if the tile has a flag and is a mine, show the flag instead of the mine
-                        if (board.isMine(row, column))
-                        {
-                            variableImage = flagIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                            buttons[row][column].setIcon(new ImageIcon(variableImage));
-                        }
-                        else
-                        {
-                            // Display the alternative flag icon if the tile is flagged but isnt a mine
-                            variableImage = wrongFlagIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                            buttons[row][column].setIcon(new ImageIcon(variableImage));
-                        }
-                    }
-                    else if (board.getMineCount(row, column) == 0)
-                    {
-                        // if the tile is empty, just replace the icon to the empty icon
-                        variableImage = revealedIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                        buttons[row][column].setIcon(new ImageIcon(variableImage));
-                    }
-                    else
-                    {
-                        // depending on the number of adjacent mines, replace the tile texture with a proper number representing the mine count
-                        numberIcon = new ImageIcon("../resources/icons/number_" + board.getMineCount(row, column) + ".png");
-                        variableImage = numberIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                        buttons[row][column].setIcon(new ImageIcon(variableImage));
-                    }
-                    board.setRevealed(row, column, true);
-                }
-            }
+            case REVEALED:
+                playBlockHitSound();
+                break;
+            case FLAG_REMOVED:
+                // the user right clicked again on a flagged tile
+                playSound("Flag/FlagRemoved.wav"); // Play flag removed sound
+                break;
+            case FLAG_PLACED:
+                playSound("Flag/FlagPlaced.wav"); // Play flag placed sound
+                break;
+            case NO_FLAGS_LEFT:
+                //* Note: total flag counter = total mine counter */
+                JOptionPane.showMessageDialog(null, "You don't have any flags left!");
+                break;
+            case WON:
+                gameWon(batch);
+                break;
+            case LOST:
+                gameLost(batch);
+                break;
+            default:
+                break;
         }
-        frame.revalidate(); // Revalidate the frame
-        frame.repaint(); // Repaint the frame
     }
 
-    // if the tile has been flagged this function is called
-    private void flagCell(int row, int column)
+    // the clock runs from the first click until the game is over, and carries on when a finished practice game is taken back
+    private void updateClock(GameActor.ChangeBatch batch)
     {
-        if (!board.isRevealed(row, column))
+        if (batch.newGame)
         {
-            // if the tile is already flagged, and the user right clicks again on that tile
-            if (board.isFlagged(row, column))
-            {
-                playSound("../resources/audio/Flag/FlagRemoved.wav"); // Play flag removed sound
-                variableImage = unrevealedIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                buttons[row][column].setIcon(new ImageIcon(variableImage)); // Change icon back to unrevealed
-                board.setFlagged(row, column, false);
-                flagsAvailable++; // re-increase the num of flags available when removed
-            }
-            else
-            {
-                //check the flag counter
-                //* Note: total flag counter = total mine counter */
-                if (flagsAvailable > 0)
-                {
-                    // Add flag if tile was not already flagged
-                    playSound("../resources/audio/Flag/FlagPlaced.wav"); // Play flag placed sound
-                    variableImage = flagIcon.getImage().getScaledInstance(buttons[row][column].getWidth(), buttons[row][column].getHeight(), Image.SCALE_SMOOTH);
-                    buttons[row][column].setIcon(new ImageIcon(variableImage));
-                    board.setFlagged(row, column, true);
-                    flagsAvailable--; // Decrease flags available when flag is placed
-                }
-                else
-                // if flag counter is 0
-                    JOptionPane.showMessageDialog(null, "You don't have any flags left!");
-            }
-            flagsLabel.setText("Flags remaining: " + flagsAvailable); // Update flags label
+            //reset the timer back to 0, or to the time of a loaded game
+            timer.stop();
+            elapsedTime = batch.elapsedNanos;
+            updateTimer();
+        }
+        if (batch.running && !timer.isRunning())
+        {
+            startTime = System.nanoTime();
+            timer.start();
+        }
+        else if (!batch.running && timer.isRunning())
+        {
+            calculateElapsedTime();
+            timer.stop();
         }
     }
 
     //function that handles victory
-    private boolean isGameWon()
+    // if the tiles left to reveal is equal to the total number of tiles - tiles that include mines
+    // the more the tiles get revealed, the more the revealedCells counter gets increased until it reaches the limit, then declare victory
+
+    //=============================================
+    //if there is a scenario where the user manages to flag all the mines on the board
+    //despite not revealing all the number/empty tiles, declare that as an alternate victory as well ------ done
+
+    // alternate victory case bug: when triggering a shield, alternate victory scenario can no longer be achieved ------ FIXED
+
+    // rare case scenario when game isnt a victory despite all tiles being revealed except for the mines ------ FIXED
+    //=============================================
+    // the batch that ended the game already shows every tile, the dialog comes after it has been applied
+    private void gameWon(GameActor.ChangeBatch batch)
+    {
+        playSound("Victory.wav"); // Play victory sound
+        // 3BV per second of play, how fast the board was cleared whatever its size
+        double seconds = elapsedTime / 1e9;
+        String speed = seconds > 0 ? String.format("%.2f", batch.threeBV / seconds) : "-";
+        JOptionPane.showMessageDialog(null, "Congratulations! You won the game without stepping on any mines!\n3BV: " + batch.threeBV
+            + ", 3BV/s: " + speed + "\nSeed: " + batch.seed);
+        restartGame(rows, columns, mines);
+    }
+
+    // handles game loss
+    // reveal all the board along with displaying message to the player
+    private void gameLost(GameActor.ChangeBatch batch)
     {
-        // if the tiles left to reveal is equal to the total number of tiles - tiles that include mines
-        // the more the tiles get revealed, the more the revealedCells counter gets increased until it reaches the limit, then declare victory
-        
-        //=============================================
-        //if there is a scenario where the user manages to flag all the mines on the board
-        //despite not revealing all the number/empty tiles, declare that as an alternate victory as well ------ done
-
-        // alternate victory case bug: when triggering a shield, alternate victory scenario can no longer be achieved
-        
-        // rare case scenario when game isnt a victory despite all tiles being revealed except for the mines ------ FIXED
-        //=============================================
-
-        int cellsToReveal = board.getSize() * board.getSize() - board.getMines();
-        int revealedCells = 0;
-        int flaggedMines = 0;
-        for (int row = 0; row < board.getSize(); row++)
+        playMineHitSound();
+        // in practice mode the move that lost can be taken back instead of starting over
+        if (practiceMenuItem.isSelected())
         {
-            for (int column = 0; column < board.getSize(); column++)
+            Object[] options = {"Undo", "New game"};
+            int choice = JOptionPane.showOptionDialog(frame, "Game Over! You clicked on a mine.\nSeed: " + batch.seed, "Game Over",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+            if (choice == 0)
             {
-                if (board.isRevealed(row, column) && !board.isMine(row, column))
-                    revealedCells++;
-                else if (board.isRevealed(row, column) && board.isMine(row, column))
-                    continue;
-                
-                if (board.isMine(row, column) && board.isFlagged(row, column))
-                    flaggedMines++;
+                actor.undo();
+                return;
             }
         }
-        return revealedCells == cellsToReveal || flaggedMines == board.getMines();
+        else
+            JOptionPane.showMessageDialog(frame, "Game Over! You clicked on a mine.\nSeed: " + batch.seed);
+        restartGame(rows, columns, mines);
     }
 
-    private void restartGame(int newSize, int newMines) {
-        // new instance of the Board
-        board = new MinesweeperBoard(newSize, newMines);
-        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        JPanel centerPanel = new JPanel(new GridLayout(newSize, newSize));
-        firstClick = true;
-
-        // Create new components
-        shieldsAvailable = 2;
-        flagsAvailable = newMines;
-        flagsLabel = new JLabel("Flags remaining: " + flagsAvailable); // Reinitialize flags label
-        shieldsLabel = new JLabel("Shields remaining: " + shieldsAvailable); // Initialize shields label
-        topPanel.add(flagsLabel); // Add flags label to top panel
-        topPanel.add(timerLabel); // Add time label
-        topPanel.add(shieldsLabel); // Add shield label
-        initializeButtons(newSize, centerPanel); // Pass both size and JPanel
-
-        // Clear and update the frame
-        frame.getContentPane().removeAll(); // Clear the frame
-        frame.add(topPanel, BorderLayout.NORTH); // Add top panel back to frame
-        frame.add(centerPanel, BorderLayout.CENTER); // Add center panel back to frame
-
-        //reset the timer back to 0
-        elapsedTime = 0;
-        updateTimer();
-        timer.stop();
-
-        frame.revalidate();
-        frame.repaint();
+    // start over on the game thread, the window is reset once the new game's batch comes back
+    private void restartGame(int newRows, int newColumns, int newMines) {
+        actor.restart(newRows, newColumns, newMines, null);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,400 @@
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+
+public class MinesweeperGame
+{
+    // what a move ended up doing, so whoever is showing the game knows what to update or play
+    public enum Outcome
+    {
+        IGNORED,        // nothing changed (tile already revealed, flagged, out of bounds or the game is over)
+        REVEALED,       // one or more free tiles were revealed
+        SHIELD_USED,    // a mine was hit but a shield protected the player
+        LOST,           // a mine was hit with no shields left
+        WON,            // the board is cleared
+        FLAG_PLACED,
+        FLAG_REMOVED,
+        NO_FLAGS_LEFT   // tried to place a flag with none left
+    }
+
+    // every game starts with 2 shields
+    public static final int STARTING_SHIELDS = 2;
+
+    private MinesweeperBoard board;
+    private int flagsAvailable; // Number of flags available
+    private int shieldsAvailable; // Number of shields available
+    private boolean firstClick; // flag for first click (for mine generation)
+    private boolean over; // set once the game is won or lost
+    private boolean noGuess; // only hand out boards that can be cleared without guessing, kept across new games
+    private boolean guessing; // no-guess boards are on but this board is a normal one, none was found in time or the board is too big
+    private Long nextSeed; // seed for the next board, null for a random one
+    private MoveLog log; // where the moves of this game get recorded, null to not record them
+    private MoveHistory history; // moves that can be undone and redone, null unless practice mode is on
+
+    // default
+    public MinesweeperGame(int rows, int columns, int mines) {
+        newGame(rows, columns, mines);
+    }
+
+    // square board
+    public MinesweeperGame(int size, int mines) {
+        this(size, size, mines);
+    }
+
+    // carry on a game from where it was left, e.g. one loaded from a save
+    MinesweeperGame(MinesweeperBoard board, int flagsAvailable, int shieldsAvailable, boolean firstClick, boolean over)
+    {
+        this.board = board;
+        this.flagsAvailable = flagsAvailable;
+        this.shieldsAvailable = shieldsAvailable;
+        this.firstClick = firstClick;
+        this.over = over;
+    }
+
+    // start over on a fresh board
+    public void newGame(int rows, int columns, int mines)
+    {
+        // a board of the same size is cleared and reused rather than allocated again
+        if (board != null && board.getRows() == rows && board.getColumns() == columns)
+            board.reset(mines);
+        else
+            board = new MinesweeperBoard(rows, columns, mines);
+        flagsAvailable = mines; // total flag counter = total mine counter
+        shieldsAvailable = STARTING_SHIELDS;
+        firstClick = true;
+        over = false;
+        guessing = false;
+        if (history != null)
+            history.clear();
+    }
+
+    // left click on a tile
+    // the tiles that changed can be read from the board's batch (getChangedCount/getChangedCell)
+    public Outcome reveal(int row, int column)
+    {
+        if (over || !board.isInBounds(row, column))
+            return Outcome.IGNORED;
+
+        // if the click on the board is the very first click, the mines then generate after the first click
+        // this was done to prevent mines from generating before the first click and player losing instantly
+        if (firstClick)
+        {
+            placeMines(row, column);
+            firstClick = false;
+        }
+        record(row, column, MoveLog.REVEAL);
+        int flags = flagsAvailable;
+        int shields = shieldsAvailable;
+
+        // flagged or already revealed tiles can't be revealed, this prevents the user from left-clicking a flagged mine and losing
+        if (revealCascade(row, column) == 0)
+            return Outcome.IGNORED;
+
+        Outcome outcome;
+        if (board.isMine(row, column))
+            outcome = mineHit(row, column);
+        else
+            outcome = board.isCleared() ? end(Outcome.WON) : Outcome.REVEALED;
+        remember(flags, shields);
+        return outcome;
+    }
+
+    // board.reveal, timed when metrics are on
+    private int revealCascade(int row, int column)
+    {
+        if (!Metrics.ENABLED)
+            return board.reveal(row, column);
+
+        MinesweeperEvents.Cascade event = new MinesweeperEvents.Cascade();
+        event.begin();
+        long start = System.nanoTime();
+        int tiles = board.reveal(row, column);
+        Metrics.CASCADE.record(System.nanoTime() - start);
+        Metrics.CASCADE_TILES.add(tiles);
+        event.tiles = tiles;
+        event.commit();
+        return tiles;
+    }
+
+    // no-guess boards keep the whole area around the first click free so the solver has an opening to start from
+    // normal boards only keep the clicked tile free, like they always have
+    private void placeMines(int row, int column)
+    {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        MinesweeperBoard.SafeZone safeZone = MinesweeperBoard.SafeZone.CELL;
+        if (noGuess && board.getMines() <= rows * columns - 9)
+            safeZone = MinesweeperBoard.SafeZone.AREA;
+
+        long seed;
+        if (nextSeed != null)
+            seed = nextSeed;
+        else
+        {
+            OptionalLong found = OptionalLong.empty();
+            if (noGuess && rows * columns <= NoGuessGenerator.MAX_TILES)
+                found = NoGuessGenerator.findSeed(rows, columns, board.getMines(), row, column, safeZone);
+            guessing = noGuess && found.isEmpty();
+            seed = found.isPresent() ? found.getAsLong() : new SplittableRandom().nextLong();
+        }
+        nextSeed = null;
+
+        MinesweeperEvents.PlaceMines event = null;
+        long start = 0;
+        if (Metrics.ENABLED)
+        {
+            event = new MinesweeperEvents.PlaceMines();
+            event.begin();
+            start = System.nanoTime();
+        }
+        board.placeMines(row, column, seed, safeZone);
+        if (Metrics.ENABLED)
+        {
+            Metrics.PLACE_MINES.record(System.nanoTime() - start);
+            event.rows = rows;
+            event.columns = columns;
+            event.mines = board.getMines();
+            event.commit();
+        }
+
+        if (log != null)
+            log.mines(row * columns + column, seed, safeZone);
+    }
+
+    // click on a revealed number whose mines are all flagged, reveals every other tile around it
+    // if a flag was wrong, the mine under the unflagged tile goes off like a normal click would
+    public Outcome chord(int row, int column)
+    {
+        if (over || !board.isInBounds(row, column))
+            return Outcome.IGNORED;
+        record(row, column, MoveLog.CHORD);
+
+        int flags = flagsAvailable;
+        int shields = shieldsAvailable;
+        Outcome outcome = revealAround(row, column);
+        if (outcome != Outcome.IGNORED)
+            remember(flags, shields);
+        return outcome;
+    }
+
+    private Outcome revealAround(int row, int column)
+    {
+        if (!board.isRevealed(row, column) || board.isMine(row, column))
+            return Outcome.IGNORED;
+
+        int mineCount = board.getMineCount(row, column);
+        if (mineCount == 0 || board.countAdjacentFlags(row, column) != mineCount)
+            return Outcome.IGNORED;
+
+        if (board.revealAround(row, column) == 0)
+            return Outcome.IGNORED;
+
+        // go through every tile the chord revealed and set off any mine among them
+        Outcome outcome = Outcome.REVEALED;
+        for (int i = 0; i < board.getChangedCount(); i++)
+        {
+            int cell = board.getChangedCell(i);
+            int mineRow = cell / board.getColumns();
+            int mineColumn = cell % board.getColumns();
+            if (board.isMine(mineRow, mineColumn))
+            {
+                outcome = mineHit(mineRow, mineColumn);
+                if (outcome != Outcome.SHIELD_USED)
+                    return outcome;
+            }
+        }
+        if (outcome == Outcome.REVEALED && board.isCleared())
+            return end(Outcome.WON);
+        return outcome;
+    }
+
+    // right click on a tile, places a flag or removes the one already there
+    public Outcome flag(int row, int column)
+    {
+        if (over || !board.isInBounds(row, column))
+            return Outcome.IGNORED;
+        record(row, column, MoveLog.FLAG);
+        if (board.isRevealed(row, column))
+            return Outcome.IGNORED;
+        int cell = row * board.getColumns() + column;
+        byte before = board.getCell(cell);
+        int flags = flagsAvailable;
+
+        // if the tile is already flagged, and the user right clicks again on that tile
+        if (board.isFlagged(row, column))
+        {
+            board.setFlagged(row, column, false);
+            flagsAvailable++; // re-increase the num of flags available when removed
+            remember(cell, before, flags);
+            return Outcome.FLAG_REMOVED;
+        }
+
+        // check the flag counter
+        if (flagsAvailable == 0)
+            return Outcome.NO_FLAGS_LEFT;
+
+        board.setFlagged(row, column, true);
+        flagsAvailable--; // Decrease flags available when flag is placed
+        // flagging every mine is an alternate victory
+        Outcome outcome = board.isCleared() ? end(Outcome.WON) : Outcome.FLAG_PLACED;
+        remember(cell, before, flags);
+        return outcome;
+    }
+
+    // keep the move just made in the history, as the tiles in the board's batch of changes
+    private void remember(int flagsBefore, int shieldsBefore)
+    {
+        if (history == null)
+            return;
+        int count = board.getChangedCount();
+        int[] cells = new int[count];
+        byte[] before = new byte[count];
+        byte[] after = new byte[count];
+        for (int i = 0; i < count; i++)
+        {
+            cells[i] = board.getChangedCell(i);
+            before[i] = board.getChangedBefore(i);
+            after[i] = board.getCell(cells[i]);
+        }
+        history.add(new MoveHistory.Move(cells, before, after, flagsBefore, shieldsBefore, flagsAvailable, shieldsAvailable, over));
+    }
+
+    // keep a flag move in the history, it only ever changes the one tile
+    private void remember(int cell, byte before, int flagsBefore)
+    {
+        if (history != null)
+            history.add(new MoveHistory.Move(new int[] {cell}, new byte[] {before}, new byte[] {board.getCell(cell)},
+                flagsBefore, shieldsAvailable, flagsAvailable, shieldsAvailable, over));
+    }
+
+    // take back the last move, in practice mode, including one that lost the game or used up a shield
+    // the tiles it changed are put back and make up the board's batch of changes, the same as after a reveal,
+    // so it costs as much as the move changed; returns false if there is nothing to undo
+    public boolean undo()
+    {
+        MoveHistory.Move move = history != null ? history.undo() : null;
+        if (move == null)
+            return false;
+        board.clearChanges();
+        for (int i = 0; i < move.cells.length; i++)
+            board.setCell(move.cells[i], move.before[i]);
+        flagsAvailable = move.flagsBefore;
+        shieldsAvailable = move.shieldsBefore;
+        over = false;
+        return true;
+    }
+
+    // play the last undone move again, returns false if there is nothing to redo
+    public boolean redo()
+    {
+        MoveHistory.Move move = history != null ? history.redo() : null;
+        if (move == null)
+            return false;
+        board.clearChanges();
+        for (int i = 0; i < move.cells.length; i++)
+            board.setCell(move.cells[i], move.after[i]);
+        flagsAvailable = move.flagsAfter;
+        shieldsAvailable = move.shieldsAfter;
+        over = move.overAfter;
+        return true;
+    }
+
+    // a revealed tile turned out to be a mine
+    // a shield protects the player and auto-flags the mine so it can no longer be clicked on, otherwise the game is lost
+    private Outcome mineHit(int row, int column)
+    {
+        if (shieldsAvailable == 0)
+            return end(Outcome.LOST);
+
+        shieldsAvailable--; // Use a shield
+        board.setShielded(row, column, true);
+        board.setFlagged(row, column, true);
+        // the auto-flag may have been the last mine left unflagged
+        return board.isCleared() ? end(Outcome.WON) : Outcome.SHIELD_USED;
+    }
+
+    // every click on the board is recorded, even ones that turn out to do nothing, so a replay goes through exactly the same moves
+    private void record(int row, int column, int action)
+    {
+        if (log != null)
+            log.move(row * board.getColumns() + column, action);
+    }
+
+    private Outcome end(Outcome outcome)
+    {
+        over = true;
+        return outcome;
+    }
+
+    // turn practice mode on or off, in practice mode every move can be undone and redone
+    // the mines stay where they are when the first click is undone, so the board is the same when it is clicked again
+    public void setPractice(boolean practice)
+    {
+        if (practice && history == null)
+            history = new MoveHistory();
+        else if (!practice)
+            history = null;
+    }
+
+    public boolean isPractice() {
+        return history != null;
+    }
+
+    // the undo history, null unless practice mode is on
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    // turn no-guess boards on or off, takes effect from the next first click
+    public void setNoGuess(boolean noGuess) {
+        this.noGuess = noGuess;
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    // no-guess boards are on, but the current board had to be a normal one that may need a guess
+    public boolean isGuessing() {
+        return guessing;
+    }
+
+    // play the next board from this seed, e.g. to replay a board from a bug report or share a challenge
+    // the same seed and the same first click always give the same board
+    public void setNextSeed(long seed) {
+        nextSeed = seed;
+    }
+
+    // record the moves of the current game to the log, null to stop recording
+    // the log is expected to be started along with the game, before its first click
+    public void setMoveLog(MoveLog log) {
+        this.log = log;
+    }
+
+    // get the seed the current board's mines were placed from
+    public long getSeed() {
+        return board.getSeed();
+    }
+
+    // get the board the game is played on
+    public MinesweeperBoard getBoard() {
+        return board;
+    }
+
+    public int getFlagsAvailable() {
+        return flagsAvailable;
+    }
+
+    public int getShieldsAvailable() {
+        return shieldsAvailable;
+    }
+
+    // true until the first tile is revealed and the mines get placed
+    public boolean isFirstClick() {
+        return firstClick;
+    }
+
+    // true once the game has been won or lost
+    public boolean isOver() {
+        return over;
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// plays games against a MinesweeperServer as fast as it can and reports the moves per second and the reply latencies
+// usage: java MinesweeperLoadClient [connections] [seconds] [host port]
+// without a host a server is started in this JVM on a free loopback port, so the whole thing runs on its own
+public class MinesweeperLoadClient
+{
+    private static final int ROWS = 16;
+    private static final int COLUMNS = 30;
+    private static final int MINES = 99;
+
+    private static final LongAdder moves = new LongAdder();
+    private static final LongAdder games = new LongAdder();
+    private static final Metrics.Timer latency = Metrics.timer("reply");
+
+    private static volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception
+    {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        MinesweeperServer server = null;
+        InetSocketAddress address;
+        if (args.length > 3)
+            address = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+        else
+        {
+            server = new MinesweeperServer(0, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            address = new InetSocketAddress("localhost", server.getPort());
+        }
+
+        Thread[] players = new Thread[connections];
+        for (int i = 0; i < connections; i++)
+        {
+            long seed = i;
+            players[i] = new Thread(() -> play(address, seed), "load-" + i);
+            players[i].start();
+        }
+
+        // skip the first second while the JIT warms up, then measure
+        Thread.sleep(1000);
+        long startMoves = moves.sum();
+        long startGames = games.sum();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        running = false;
+        for (Thread player : players)
+            player.join();
+
+        System.out.printf("%d connections, %.1f s%n", connections, elapsed);
+        System.out.printf("%.0f moves/s, %.0f games/s%n", (moves.sum() - startMoves) / elapsed, (games.sum() - startGames) / elapsed);
+        System.out.printf("latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms%n",
+            latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.percentile(0.999) / 1e6);
+        if (server != null)
+            server.close();
+    }
+
+    // one connection playing game after game, clicking random hidden tiles until each game ends
+    private static void play(InetSocketAddress address, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[] tiles = new byte[ROWS * COLUMNS];
+        ByteBuffer request = ByteBuffer.allocate(64);
+        ByteBuffer reply = ByteBuffer.allocate(64 * 1024);
+
+        try (SocketChannel channel = SocketChannel.open(address))
+        {
+            channel.socket().setTcpNoDelay(true);
+            while (running)
+            {
+                request.clear();
+                request.putInt(1 + 4 + 4 + 4 + 8).put(MinesweeperServer.NEW_GAME).putInt(ROWS).putInt(COLUMNS).putInt(MINES).putLong(random.nextLong() | 1);
+                reply = call(channel, request, reply);
+                long session = reply.getLong();
+                Arrays.fill(tiles, MinesweeperServer.STATE_HIDDEN);
+
+                boolean over = false;
+                while (!over && running)
+                {
+                    int cell = randomHidden(tiles, random);
+                    request.clear();
+                    request.putInt(1 + 8 + 4 + 4).put(MinesweeperServer.REVEAL).putLong(session).putInt(cell / COLUMNS).putInt(cell % COLUMNS);
+                    reply = call(channel, request, reply);
+
+                    reply.getLong();
+                    MinesweeperGame.Outcome outcome = MinesweeperGame.Outcome.values()[reply.get()];
+                    reply.getInt();
+                    reply.getInt();
+                    int count = reply.getInt();
+                    for (int i = 0; i < count; i++)
+                        tiles[reply.getInt()] = reply.get();
+                    moves.increment();
+                    over = outcome == MinesweeperGame.Outcome.WON || outcome == MinesweeperGame.Outcome.LOST;
+                }
+
+                request.clear();
+                request.putInt(1 + 8).put(MinesweeperServer.CLOSE_GAME).putLong(session);
+                request.flip();
+                while (request.hasRemaining())
+                    channel.write(request);
+                games.increment();
+            }
+        }
+        catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // send a request and wait for its reply, returns the reply positioned just after its type byte
+    private static ByteBuffer call(SocketChannel channel, ByteBuffer request, ByteBuffer reply) throws IOException
+    {
+        long start = System.nanoTime();
+        request.flip();
+        while (request.hasRemaining())
+            channel.write(request);
+
+        reply.clear();
+        reply.limit(4);
+        readFully(channel, reply);
+        int length = reply.getInt(0);
+        if (length + 4 > reply.capacity())
+        {
+            reply = ByteBuffer.allocate(length + 4);
+            reply.putInt(length);
+        }
+        reply.limit(length + 4);
+        readFully(channel, reply);
+        latency.record(System.nanoTime() - start);
+
+        reply.flip();
+        reply.getInt();
+        byte type = reply.get();
+        if (type == MinesweeperServer.ERROR)
+            throw new IOException("server error " + reply.get());
+        return reply;
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new IOException("server closed the connection");
+    }
+
+    private static int randomHidden(byte[] tiles, SplittableRandom random)
+    {
+        while (true)
+        {
+            int cell = random.nextInt(tiles.length);
+            if (tiles[cell] == MinesweeperServer.STATE_HIDDEN)
+                return cell;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// hosts any number of games at once over TCP, each one a headless MinesweeperGame
+// usage: java MinesweeperServer [port]
+//
+// every message is an int length (of what follows), a type byte and the fields of that type, big endian
+// requests:
+//   NEW_GAME    int rows, int columns, int mines, long seed (0 for a random board)
+//   REVEAL, CHORD, FLAG    long session, int row, int column
+//   CLOSE_GAME  long session
+// replies:
+//   GAME        long session, int rows, int columns, int mines
+//   DIFF        long session, byte outcome (MinesweeperGame.Outcome ordinal), int flags left, int shields left,
+//               int count, then count times int tile (row * columns + column) and byte state (see the STATE_ constants)
+//   ERROR       byte error code
+// a DIFF only holds the tiles the move changed, never the whole board
+// a game belongs to the connection that started it, no other connection can play or close it, and it ends with that connection
+public class MinesweeperServer implements AutoCloseable
+{
+    public static final int DEFAULT_PORT = 7070;
+
+    public static final byte NEW_GAME = 1;
+    public static final byte REVEAL = 2;
+    public static final byte CHORD = 3;
+    public static final byte FLAG = 4;
+    public static final byte CLOSE_GAME = 5;
+    public static final byte GAME = (byte) 0x81;
+    public static final byte DIFF = (byte) 0x82;
+    public static final byte ERROR = (byte) 0xFF;
+
+    public static final byte ERROR_UNKNOWN_SESSION = 1;
+    public static final byte ERROR_BAD_REQUEST = 2;
+    public static final byte ERROR_TOO_MANY_SESSIONS = 3;
+
+    // what a tile shows in a DIFF: 0-8 a revealed number, then these
+    public static final byte STATE_MINE = 9;
+    public static final byte STATE_FLAG = 10;
+    public static final byte STATE_HIDDEN = 11;
+    public static final byte STATE_SHIELD = 12;
+
+    // biggest board side a client can ask for, so a single request can't take all the memory
+    private static final int MAX_SIZE = 1000;
+    // games one connection can have going at once, and all connections together,
+    // and the tiles of all of them, about 8 bytes each once played, so all the requests together can't either
+    private static final int MAX_SESSIONS_PER_CONNECTION = 16;
+    private static final int MAX_SESSIONS = 4096;
+    private static final long MAX_TILES = 32L * MAX_SIZE * MAX_SIZE;
+    // biggest request accepted, anything longer is a broken or hostile client
+    private static final int MAX_REQUEST = 64;
+    // size the in and out buffers start at
+    private static final int BUFFER_BYTES = 4 * 1024;
+    // once this many reply bytes wait for a client that isn't reading them, its requests are left unanswered
+    // and its socket unread until they are sent
+    private static final int MAX_PENDING = 64 * 1024;
+    // the biggest reply, a DIFF of every tile of the biggest board
+    private static final int MAX_REPLY = 4 + 1 + 8 + 1 + 4 + 4 + 4 + MAX_SIZE * MAX_SIZE * 5;
+    // the out buffer never grows past this, a request is only answered with less than MAX_PENDING waiting
+    private static final int MAX_OUT = MAX_PENDING + MAX_REPLY;
+    // games nobody has made a move on for this long are dropped
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    // one game being played over the network, by the connection that started it
+    private static class Session
+    {
+        final MinesweeperGame game;
+        final Connection owner;
+        final int tiles;
+        volatile long lastUsed = System.nanoTime();
+
+        Session(MinesweeperGame game, Connection owner, int tiles)
+        {
+            this.game = game;
+            this.owner = owner;
+            this.tiles = tiles;
+        }
+    }
+
+    // every game being played, by session id
+    // ConcurrentHashMap locks per bin on writes and never on reads, so the selector threads don't get in each other's way
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    // tiles of every game in sessions
+    private final AtomicLong tiles = new AtomicLong();
+
+    private final ServerSocketChannel server;
+    private final Worker[] workers;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean running = true;
+
+    // start listening, port 0 picks any free port
+    // each worker thread runs its own selector over its share of the connections
+    public MinesweeperServer(int port, int workerCount) throws IOException
+    {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+
+        workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++)
+        {
+            workers[i] = new Worker();
+            Thread thread = new Thread(workers[i], "server-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread acceptor = new Thread(this::accept, "server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = IDLE_NANOS / 4;
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    // hand every new connection to the workers in turn
+    private void accept()
+    {
+        int next = 0;
+        while (running)
+        {
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                workers[next].add(channel);
+                next = (next + 1) % workers.length;
+            }
+            catch (IOException ex) {
+                if (running)
+                    ex.printStackTrace();
+            }
+        }
+    }
+
+    private void evictIdle()
+    {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Session> entry : sessions.entrySet())
+            if (now - entry.getValue().lastUsed > IDLE_NANOS)
+                drop(entry.getKey());
+    }
+
+    // end a game, from whichever thread, whoever gets to it first does the bookkeeping
+    private void drop(long id)
+    {
+        Session session = sessions.remove(id);
+        if (session == null)
+            return;
+        tiles.addAndGet(-session.tiles);
+        session.owner.owned.remove(id);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    // number of games currently being played
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        running = false;
+        server.close();
+        evictor.shutdownNow();
+        for (Worker worker : workers)
+            worker.selector.wakeup();
+    }
+
+    // a selector loop serving its share of the connections
+    private class Worker implements Runnable
+    {
+        final Selector selector;
+        final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+
+        Worker() throws IOException {
+            selector = Selector.open();
+        }
+
+        void add(SocketChannel channel)
+        {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run()
+        {
+            while (running)
+            {
+                try {
+                    selector.select();
+                    for (SocketChannel channel; (channel = added.poll()) != null; )
+                        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext())
+                    {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable())
+                                connection.read(key);
+                            if (key.isValid() && key.isWritable())
+                                connection.flush(key);
+                        }
+                        catch (IOException ex) {
+                            // the client went away
+                            key.cancel();
+                            connection.close();
+                        }
+                    }
+                }
+                catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            try {
+                selector.close();
+            }
+            catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    // one client: bytes come in, whole requests are answered, replies wait in the out buffer until the socket takes them
+    // while replies wait the socket isn't read, so a client that sends without reading can't make the server queue up
+    // replies for it without end, it just finds its own sends blocking
+    private class Connection
+    {
+        final SocketChannel channel;
+        // ids of the games this connection started, the evictor thread removes from it too
+        final Set<Long> owned = ConcurrentHashMap.newKeySet();
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // the connection's games go with it
+        void close() throws IOException
+        {
+            for (long id : owned)
+                drop(id);
+            channel.close();
+        }
+
+        void read(SelectionKey key) throws IOException
+        {
+            if (channel.read(in) < 0)
+                throw new IOException("closed");
+            flush(key);
+        }
+
+        // send what the socket takes, and answer the requests held back while replies were waiting once they are all sent
+        void flush(SelectionKey key) throws IOException
+        {
+            boolean more;
+            do
+            {
+                more = answer();
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+            while (more && out.position() == 0);
+
+            // a big opening's reply may have grown the out buffer, it isn't kept around once sent
+            if (out.position() == 0 && out.capacity() > BUFFER_BYTES)
+                out = ByteBuffer.allocate(BUFFER_BYTES);
+            // either read more requests or wait for the socket to take the replies, never both
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        // answer the whole requests in the in buffer, stopping once MAX_PENDING reply bytes are waiting
+        // returns whether it stopped with requests possibly left
+        private boolean answer() throws IOException
+        {
+            boolean full = false;
+            in.flip();
+            while (in.remaining() >= 4)
+            {
+                if (out.position() >= MAX_PENDING)
+                {
+                    full = true;
+                    break;
+                }
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > MAX_REQUEST)
+                    throw new IOException("bad request length " + length);
+                if (in.remaining() < 4 + length)
+                    break;
+                in.getInt();
+                handle(in.slice(in.position(), length));
+                in.position(in.position() + length);
+            }
+            in.compact();
+            return full;
+        }
+
+        // answer one request, the buffer holds exactly that request so a short one can't read into the next
+        private void handle(ByteBuffer request) throws IOException
+        {
+            byte type = request.get();
+            try {
+                switch (type)
+                {
+                    case NEW_GAME:
+                        newGame(request.getInt(), request.getInt(), request.getInt(), request.getLong());
+                        break;
+                    case REVEAL:
+                    case CHORD:
+                    case FLAG:
+                        move(type, request.getLong(), request.getInt(), request.getInt());
+                        break;
+                    case CLOSE_GAME:
+                    {
+                        long id = request.getLong();
+                        if (owned.contains(id))
+                            drop(id);
+                        break;
+                    }
+                    default:
+                        error(ERROR_BAD_REQUEST);
+                        break;
+                }
+            }
+            catch (RuntimeException ex) {
+                // a request too short for its type, or a board that can't be made
+                error(ERROR_BAD_REQUEST);
+            }
+        }
+
+        private void newGame(int rows, int columns, int mines, long seed) throws IOException
+        {
+            if (rows <= 0 || rows > MAX_SIZE || columns <= 0 || columns > MAX_SIZE || mines < 0 || mines >= rows * columns)
+            {
+                error(ERROR_BAD_REQUEST);
+                return;
+            }
+            // the global count can go over by one per worker racing for the last places, the tiles can't
+            int size = rows * columns;
+            if (owned.size() >= MAX_SESSIONS_PER_CONNECTION || sessions.size() >= MAX_SESSIONS)
+            {
+                error(ERROR_TOO_MANY_SESSIONS);
+                return;
+            }
+            if (tiles.addAndGet(size) > MAX_TILES)
+            {
+                tiles.addAndGet(-size);
+                error(ERROR_TOO_MANY_SESSIONS);
+                return;
+            }
+            MinesweeperGame game = new MinesweeperGame(rows, columns, mines);
+            if (seed != 0)
+                game.setNextSeed(seed);
+
+            Session session = new Session(game, this, size);
+            long id;
+            do {
+                id = ThreadLocalRandom.current().nextLong();
+            } while (sessions.putIfAbsent(id, session) != null);
+            owned.add(id);
+
+            reserve(4 + 1 + 8 + 4 + 4 + 4);
+            out.putInt(1 + 8 + 4 + 4 + 4);
+            out.put(GAME);
+            out.putLong(id);
+            out.putInt(rows);
+            out.putInt(columns);
+            out.putInt(mines);
+        }
+
+        private void move(byte type, long id, int row, int column) throws IOException
+        {
+            // another connection's game is as unknown as one that doesn't exist, so its id can't be probed for
+            Session session = sessions.get(id);
+            if (session == null || session.owner != this)
+            {
+                error(ERROR_UNKNOWN_SESSION);
+                return;
+            }
+            session.lastUsed = System.nanoTime();
+
+            // only the owner's worker thread ever plays a game, so no lock is needed
+            MinesweeperGame game = session.game;
+            MinesweeperGame.Outcome outcome;
+            if (type == REVEAL)
+                outcome = game.reveal(row, column);
+            else if (type == CHORD)
+                outcome = game.chord(row, column);
+            else
+                outcome = game.flag(row, column);
+
+            MinesweeperBoard board = game.getBoard();
+            boolean flagMove = type == FLAG;
+            int count = outcome == MinesweeperGame.Outcome.IGNORED || outcome == MinesweeperGame.Outcome.NO_FLAGS_LEFT ? 0
+                : flagMove ? 1 : board.getChangedCount();
+
+            int length = 1 + 8 + 1 + 4 + 4 + 4 + count * 5;
+            reserve(4 + length);
+            out.putInt(length);
+            out.put(DIFF);
+            out.putLong(id);
+            out.put((byte) outcome.ordinal());
+            out.putInt(game.getFlagsAvailable());
+            out.putInt(game.getShieldsAvailable());
+            out.putInt(count);
+            for (int i = 0; i < count; i++)
+            {
+                int cell = flagMove ? row * board.getColumns() + column : board.getChangedCell(i);
+                out.putInt(cell);
+                out.put(state(board, cell / board.getColumns(), cell % board.getColumns()));
+            }
+        }
+
+        private void error(byte code) throws IOException
+        {
+            reserve(4 + 2);
+            out.putInt(2);
+            out.put(ERROR);
+            out.put(code);
+        }
+
+        // make sure the out buffer has room for another reply, growing it if a big opening needs more, up to MAX_OUT
+        private void reserve(int bytes) throws IOException
+        {
+            if (out.remaining() >= bytes)
+                return;
+            if (out.position() + bytes > MAX_OUT)
+                throw new IOException("too many replies waiting");
+            ByteBuffer bigger = ByteBuffer.allocate(Math.min(MAX_OUT, Math.max(out.capacity() * 2, out.position() + bytes)));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+    }
+
+    // what the player sees on a tile
+    static byte state(MinesweeperBoard board, int row, int column)
+    {
+        if (board.isShielded(row, column))
+            return STATE_SHIELD;
+        if (board.isFlagged(row, column))
+            return STATE_FLAG;
+        if (!board.isRevealed(row, column))
+            return STATE_HIDDEN;
+        if (board.isMine(row, column))
+            return STATE_MINE;
+        return (byte) board.getMineCount(row, column);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MinesweeperServer server = new MinesweeperServer(port, Runtime.getRuntime().availableProcessors());
+        System.out.println("Minesweeper server listening on port " + server.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// plays lots of games without a window to see how the difficulties and the shield rule play out
+// usage: java MinesweeperSimulation [games] [strategy] or java MinesweeperSimulation games rows columns mines [strategy]
+// without a size every difficulty is played, without a strategy every strategy (random, safe-first, solver) is
+// e.g. "java MinesweeperSimulation 100000 16 30 99 solver" plays 100k games on a 16x30 board with 99 mines using the solver
+public class MinesweeperSimulation
+{
+    // the difficulties of the game menu: name, rows, columns, mines
+    private static final Object[][] PRESETS = {
+        {"Easy", 10, 10, 10},
+        {"Medium", 15, 15, 20},
+        {"Hard", 20, 20, 60}
+    };
+
+    // how a simulated player picks the next tile to click
+    public interface Strategy
+    {
+        // returns the tile to reveal as a flat index (row * columns + column), the solver is kept up to date with the board
+        int pick(MinesweeperBoard board, MinesweeperSolver solver, SplittableRandom random);
+    }
+
+    // clicks any hidden tile
+    public static final Strategy RANDOM = (board, solver, random) -> randomHidden(board, solver, random, false);
+
+    // clicks a tile the numbers prove safe if there is one, otherwise any hidden tile not proven to be a mine
+    public static final Strategy SAFE_FIRST = (board, solver, random) -> {
+        int cell = nextSafe(board, solver);
+        return cell >= 0 ? cell : randomHidden(board, solver, random, true);
+    };
+
+    // clicks a proven safe tile if there is one, otherwise the one least likely to be a mine
+    public static final Strategy SOLVER = (board, solver, random) -> {
+        int cell = nextSafe(board, solver);
+        if (cell >= 0)
+            return cell;
+        solver.solve();
+        cell = solver.getBestCell();
+        return cell >= 0 ? cell : randomHidden(board, solver, random, true);
+    };
+
+    private static final String[] STRATEGY_NAMES = {"random", "safe-first", "solver"};
+    private static final Strategy[] STRATEGIES = {RANDOM, SAFE_FIRST, SOLVER};
+
+    // totals over a batch of games
+    public static class Result
+    {
+        long games;
+        long wins;
+        // games that would have been won with fewer shields: a game only differs once it hits the shield it wouldn't have had
+        long winsWithoutShields;
+        long winsWithOneShield;
+        long shieldsUsed;
+        long moves;
+        // the boards' 3BV, the fewest clicks that would have cleared them
+        long threeBV;
+        long nanos;
+
+        void add(Result other)
+        {
+            games += other.games;
+            wins += other.wins;
+            winsWithoutShields += other.winsWithoutShields;
+            winsWithOneShield += other.winsWithOneShield;
+            shieldsUsed += other.shieldsUsed;
+            moves += other.moves;
+            threeBV += other.threeBV;
+            nanos = Math.max(nanos, other.nanos);
+        }
+    }
+
+    // play the games on every core, each core plays its share on a single game, board and solver it keeps reusing
+    // the seed makes the whole run repeatable
+    public static Result simulate(int rows, int columns, int mines, long games, Strategy strategy, long seed)
+    {
+        int workers = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        SplittableRandom seeds = new SplittableRandom(seed);
+
+        List<CompletableFuture<Result>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers; i++)
+        {
+            long share = games / workers + (i < games % workers ? 1 : 0);
+            SplittableRandom random = seeds.split();
+            tasks.add(CompletableFuture.supplyAsync(() -> play(rows, columns, mines, share, strategy, random), executor));
+        }
+
+        Result total = new Result();
+        for (CompletableFuture<Result> task : tasks)
+            total.add(task.join());
+        executor.shutdown();
+        return total;
+    }
+
+    // one worker's share of the games
+    private static Result play(int rows, int columns, int mines, long games, Strategy strategy, SplittableRandom random)
+    {
+        Result result = new Result();
+        long start = System.nanoTime();
+
+        MinesweeperGame game = new MinesweeperGame(rows, columns, mines);
+        MinesweeperSolver solver = new MinesweeperSolver(game.getBoard());
+        for (long i = 0; i < games; i++)
+        {
+            game.newGame(rows, columns, mines);
+            game.setNextSeed(random.nextLong());
+            solver.reset();
+
+            // the first click goes anywhere, the mines are placed around it
+            MinesweeperBoard board = game.getBoard();
+            int cell = random.nextInt(rows * columns);
+            MinesweeperGame.Outcome outcome = game.reveal(cell / columns, cell % columns);
+            long moves = 1;
+            while (!game.isOver())
+            {
+                solver.update();
+                cell = strategy.pick(board, solver, random);
+                outcome = game.reveal(cell / columns, cell % columns);
+                moves++;
+            }
+
+            int shieldsUsed = MinesweeperGame.STARTING_SHIELDS - game.getShieldsAvailable();
+            result.games++;
+            result.moves += moves;
+            result.threeBV += board.get3BV();
+            result.shieldsUsed += shieldsUsed;
+            if (outcome == MinesweeperGame.Outcome.WON)
+            {
+                result.wins++;
+                if (shieldsUsed == 0)
+                    result.winsWithoutShields++;
+                if (shieldsUsed <= 1)
+                    result.winsWithOneShield++;
+            }
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // a hidden tile the numbers prove safe, -1 if there is none
+    // a tile proven safe stays safe, so the tiles left over from the last deduction are used up before deducing again
+    private static int nextSafe(MinesweeperBoard board, MinesweeperSolver solver)
+    {
+        for (int round = 0; round < 2; round++)
+        {
+            for (int cell = solver.nextSafeCell(0); cell >= 0; cell = solver.nextSafeCell(cell + 1))
+                if (!board.isRevealed(cell / board.getColumns(), cell % board.getColumns()))
+                    return cell;
+            if (round == 0)
+                solver.deduce();
+        }
+        return -1;
+    }
+
+    // any tile that is still hidden and unflagged, optionally skipping the ones the solver proved to be mines
+    // random guesses are tried first, a full scan from a random tile only happens once the board is nearly done
+    private static int randomHidden(MinesweeperBoard board, MinesweeperSolver solver, SplittableRandom random, boolean avoidMines)
+    {
+        int tiles = board.getRows() * board.getColumns();
+        for (int tries = 0; tries < 32; tries++)
+        {
+            int cell = random.nextInt(tiles);
+            if (clickable(board, solver, cell, avoidMines))
+                return cell;
+        }
+
+        int start = random.nextInt(tiles);
+        for (int i = 0; i < tiles; i++)
+        {
+            int cell = (start + i) % tiles;
+            if (clickable(board, solver, cell, avoidMines))
+                return cell;
+        }
+        // every hidden tile is a known mine, click one anyway rather than stall
+        return avoidMines ? randomHidden(board, solver, random, false) : start;
+    }
+
+    private static boolean clickable(MinesweeperBoard board, MinesweeperSolver solver, int cell, boolean avoidMines)
+    {
+        int row = cell / board.getColumns();
+        int column = cell % board.getColumns();
+        return !board.isRevealed(row, column) && !board.isFlagged(row, column) && !(avoidMines && solver.isMine(row, column));
+    }
+
+    public static void main(String[] args)
+    {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        List<Object[]> configs = new ArrayList<>();
+        if (args.length > 3)
+            configs.add(new Object[] {"Custom", Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3])});
+        else
+            for (Object[] preset : PRESETS)
+                configs.add(preset);
+        String only = args.length > 4 ? args[4] : args.length == 2 ? args[1] : null;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d games per line on %d cores%n", games, cores);
+        System.out.printf("%-8s %-10s %7s %9s %9s %9s %8s %8s %12s %14s%n",
+            "config", "strategy", "win %", "0 shield", "1 shield", "shields", "moves", "3BV", "games/s", "games/s/core");
+        for (Object[] config : configs)
+        {
+            int rows = (Integer) config[1];
+            int columns = (Integer) config[2];
+            int mines = (Integer) config[3];
+            for (int i = 0; i < STRATEGIES.length; i++)
+            {
+                if (only != null && !STRATEGY_NAMES[i].equals(only))
+                    continue;
+                Result result = simulate(rows, columns, mines, games, STRATEGIES[i], 1);
+                double gamesPerSecond = result.games / (result.nanos / 1e9);
+                System.out.printf("%-8s %-10s %7.2f %9.2f %9.2f %9.3f %8.1f %8.1f %12.0f %14.0f%n",
+                    config[0], STRATEGY_NAMES[i],
+                    100.0 * result.wins / result.games,
+                    100.0 * result.winsWithoutShields / result.games,
+                    100.0 * result.winsWithOneShield / result.games,
+                    (double) result.shieldsUsed / result.games,
+                    (double) result.moves / result.games,
+                    (double) result.threeBV / result.games,
+                    gamesPerSecond, gamesPerSecond / cores);
+            }
+        }
+    }
+}
@@ -0,0 +1,765 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MinesweeperSolver
+{
+    // how many steps the exact search of one frontier component may take before it falls back to an estimate
+    // a step takes 20 to 30 ns, so a component that runs out costs 2 to 3 ms and a solve stays well inside a frame
+    // a component only gets searched again once a move changes it, the memo keeps the estimate until then
+    private static final long SEARCH_BUDGET = 100_000;
+
+    private MinesweeperBoard board;
+    private int columns;
+    private int tiles;
+
+    // the frontier: revealed numbered tiles that still touch at least one hidden, unflagged tile
+    // it is kept up to date from the tiles each move changed, so the board never has to be scanned again
+    private int[] frontier = new int[64];
+    private int frontierCount;
+    private BitSet inFrontier = new BitSet();
+
+    // results of the last solve: hidden tiles that are certainly safe or certainly mines
+    private BitSet safe = new BitSet();
+    private BitSet mine = new BitSet();
+    // mine probability of every other hidden tile next to the frontier: the tiles in increasing order,
+    // the first probabilityCount of probabilityCells, and the probability of each at the same index
+    private int[] probabilityCells = new int[0];
+    private double[] probabilities = new double[0];
+    private int probabilityCount;
+    // mine probability of the hidden tiles that no number touches
+    private double interiorProbability;
+    // false if a component was too big to search exhaustively and its probabilities are estimates
+    private boolean exact;
+
+    // results of every frontier component from the last solve, keyed by the component's layout
+    // a component that the last move didn't touch is found here again instead of being searched
+    private Map<String, Component> memo = new HashMap<>();
+
+    // scratch lists for the tiles around a number
+    private int[] unknownA = new int[8];
+    private int[] unknownB = new int[8];
+    // log(n!) for the interior tile counts, grown as needed
+    private double[] logFactorial = {0};
+
+    // solution counts of one frontier component
+    // ways[k] is the number of mine layouts with k mines, cellWays[i][k] the number of those with a mine on cells[i]
+    private static class Component
+    {
+        int[] cells;
+        double[] ways;
+        double[][] cellWays;
+        boolean exact = true;
+    }
+
+    // default
+    public MinesweeperSolver(MinesweeperBoard board)
+    {
+        this.board = board;
+        this.columns = board.getColumns();
+        this.tiles = board.getRows() * board.getColumns();
+        reset();
+    }
+
+    // rebuild the frontier from the whole board, needed only when the board changed in a way update didn't see,
+    // or was cleared for a new game
+    public void reset()
+    {
+        frontierCount = 0;
+        inFrontier.clear();
+        memo.clear();
+        safe.clear();
+        mine.clear();
+        probabilityCount = 0;
+        // only revealed numbers go in the frontier, a board that was just started has none and isn't worth scanning
+        if (board.getRevealedSafeCells() == 0)
+            return;
+        for (int cell = 0; cell < tiles; cell++)
+            consider(cell);
+    }
+
+    // bring the frontier up to date with the tiles the board changed in its last reveal
+    public void update()
+    {
+        for (int i = 0; i < board.getChangedCount(); i++)
+            cellChanged(board.getChangedCell(i) / columns, board.getChangedCell(i) % columns);
+    }
+
+    // bring the frontier up to date after a single tile changed, e.g. a flag being placed or removed
+    public void cellChanged(int row, int column)
+    {
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (board.isInBounds(newRow, newColumn))
+                    consider(newRow * columns + newColumn);
+    }
+
+    // add the tile to the frontier if it is a revealed number next to a hidden tile
+    private void consider(int cell)
+    {
+        int row = cell / columns;
+        int column = cell % columns;
+        if (inFrontier.get(cell) || !board.isRevealed(row, column) || board.isMine(row, column) || board.getMineCount(row, column) == 0)
+            return;
+        if (countHidden(cell) == 0)
+            return;
+
+        if (frontierCount == frontier.length)
+            frontier = Arrays.copyOf(frontier, frontier.length * 2);
+        frontier[frontierCount++] = cell;
+        inFrontier.set(cell);
+    }
+
+    // find every tile that is certainly safe or certainly a mine, then the mine probability of the rest
+    public void solve()
+    {
+        deduce();
+        computeProbabilities();
+    }
+
+    // find every tile that is certainly safe or certainly a mine, using only what the numbers say
+    // a number that has as many hidden tiles left as mines left makes them all mines, one with no mines left makes them all safe
+    // if the hidden tiles of one number are a subset of another's, the difference between them is worked out the same way
+    public void deduce()
+    {
+        safe.clear();
+        mine.clear();
+        compactFrontier();
+
+        boolean progress = true;
+        while (progress)
+        {
+            progress = false;
+            for (int i = 0; i < frontierCount; i++)
+                progress |= applySingle(frontier[i]);
+            // the subset rule is slower, only use it once the simple rule is stuck
+            if (!progress)
+                for (int i = 0; i < frontierCount; i++)
+                    progress |= applySubset(frontier[i]);
+        }
+    }
+
+    // drop the numbers that no longer touch any hidden tile, or that were hidden again by an undo
+    private void compactFrontier()
+    {
+        int kept = 0;
+        for (int i = 0; i < frontierCount; i++)
+        {
+            if (board.isRevealed(frontier[i] / columns, frontier[i] % columns) && countHidden(frontier[i]) > 0)
+                frontier[kept++] = frontier[i];
+            else
+                inFrontier.clear(frontier[i]);
+        }
+        frontierCount = kept;
+    }
+
+    private boolean applySingle(int cell)
+    {
+        int unknown = unknowns(cell, unknownA);
+        int remaining = remainingMines(cell);
+        if (unknown == 0 || remaining < 0 || remaining > unknown)
+            return false;
+
+        if (remaining == 0)
+            mark(safe, unknownA, unknown);
+        else if (remaining == unknown)
+            mark(mine, unknownA, unknown);
+        else
+            return false;
+        return true;
+    }
+
+    private boolean applySubset(int cell)
+    {
+        int unknown = unknowns(cell, unknownA);
+        int remaining = remainingMines(cell);
+        if (unknown == 0)
+            return false;
+
+        // only numbers within 2 tiles can share a hidden tile
+        int row = cell / columns;
+        int column = cell % columns;
+        boolean progress = false;
+        for (int otherRow = row - 2; otherRow <= row + 2; otherRow++)
+        {
+            for (int otherColumn = column - 2; otherColumn <= column + 2; otherColumn++)
+            {
+                int other = otherRow * columns + otherColumn;
+                if (!board.isInBounds(otherRow, otherColumn) || other == cell || !inFrontier.get(other))
+                    continue;
+
+                int otherUnknown = unknowns(other, unknownB);
+                if (otherUnknown <= unknown || !isSubset(unknownA, unknown, unknownB, otherUnknown))
+                    continue;
+
+                // the tiles the other number has on top of this one's hold exactly the difference in mines
+                int difference = remainingMines(other) - remaining;
+                int extra = removeAll(unknownB, otherUnknown, unknownA, unknown);
+                if (difference == 0)
+                    mark(safe, unknownB, extra);
+                else if (difference == extra)
+                    mark(mine, unknownB, extra);
+                else
+                    continue;
+                progress = true;
+                // what this number sees may have changed
+                unknown = unknowns(cell, unknownA);
+                remaining = remainingMines(cell);
+                if (unknown == 0)
+                    return true;
+            }
+        }
+        return progress;
+    }
+
+    // both lists are in increasing order since neighbours are always visited row by row
+    private static boolean isSubset(int[] small, int smallCount, int[] large, int largeCount)
+    {
+        int j = 0;
+        for (int i = 0; i < smallCount; i++)
+        {
+            while (j < largeCount && large[j] < small[i])
+                j++;
+            if (j == largeCount || large[j] != small[i])
+                return false;
+        }
+        return true;
+    }
+
+    // remove the tiles of the second list from the first one, returns how many are left
+    private static int removeAll(int[] from, int fromCount, int[] remove, int removeCount)
+    {
+        int kept = 0;
+        for (int i = 0; i < fromCount; i++)
+        {
+            boolean found = false;
+            for (int j = 0; j < removeCount && !found; j++)
+                found = remove[j] == from[i];
+            if (!found)
+                from[kept++] = from[i];
+        }
+        return kept;
+    }
+
+    private static void mark(BitSet set, int[] cells, int count)
+    {
+        for (int i = 0; i < count; i++)
+            set.set(cells[i]);
+    }
+
+    // a tile the player can still click on: not revealed and not flagged
+    private boolean isHidden(int cell) {
+        return !board.isRevealed(cell / columns, cell % columns) && !board.isFlagged(cell / columns, cell % columns);
+    }
+
+    // a tile that is known to be a mine, either from the board (flags, a revealed mine) or from the last deduction
+    private boolean isKnownMine(int cell)
+    {
+        int row = cell / columns;
+        int column = cell % columns;
+        return board.isFlagged(row, column) || (board.isRevealed(row, column) && board.isMine(row, column)) || mine.get(cell);
+    }
+
+    private int countHidden(int cell)
+    {
+        int row = cell / columns;
+        int column = cell % columns;
+        int hidden = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (board.isInBounds(newRow, newColumn) && isHidden(newRow * columns + newColumn))
+                    hidden++;
+        return hidden;
+    }
+
+    // list the hidden tiles around a number that aren't already worked out
+    private int unknowns(int cell, int[] out)
+    {
+        int row = cell / columns;
+        int column = cell % columns;
+        int count = 0;
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+        {
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+            {
+                int neighbour = newRow * columns + newColumn;
+                if (board.isInBounds(newRow, newColumn) && isHidden(neighbour) && !safe.get(neighbour) && !mine.get(neighbour))
+                    out[count++] = neighbour;
+            }
+        }
+        return count;
+    }
+
+    // the number on the tile minus the mines already known around it
+    private int remainingMines(int cell)
+    {
+        int row = cell / columns;
+        int column = cell % columns;
+        int remaining = board.getMineCount(row, column);
+        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                if (board.isInBounds(newRow, newColumn) && isKnownMine(newRow * columns + newColumn))
+                    remaining--;
+        return remaining;
+    }
+
+    // mine probabilities for the tiles the deduction couldn't decide
+    // the frontier is split into components that share no number, each one's mine layouts are counted on its own
+    // and the counts are then combined with the number of ways the leftover mines fit into the interior tiles
+    private void computeProbabilities()
+    {
+        exact = true;
+
+        // the numbers that still have undecided tiles, with those tiles, and every undecided tile next to a number
+        int[][] constraints = new int[frontierCount][];
+        int[] constraintMines = new int[frontierCount];
+        int constraintCount = 0;
+        int[] variables = new int[64];
+        int variableCount = 0;
+        for (int i = 0; i < frontierCount; i++)
+        {
+            int unknown = unknowns(frontier[i], unknownA);
+            if (unknown == 0)
+                continue;
+            constraints[constraintCount] = Arrays.copyOf(unknownA, unknown);
+            constraintMines[constraintCount++] = remainingMines(frontier[i]);
+            if (variableCount + unknown > variables.length)
+                variables = Arrays.copyOf(variables, Math.max(variables.length * 2, variableCount + unknown));
+            System.arraycopy(unknownA, 0, variables, variableCount, unknown);
+            variableCount += unknown;
+        }
+        // the tiles in increasing order, each once, and the numbers' tiles as indexes among them
+        Arrays.sort(variables, 0, variableCount);
+        int distinct = 0;
+        for (int i = 0; i < variableCount; i++)
+            if (distinct == 0 || variables[distinct - 1] != variables[i])
+                variables[distinct++] = variables[i];
+        variableCount = distinct;
+        for (int c = 0; c < constraintCount; c++)
+            for (int j = 0; j < constraints[c].length; j++)
+                constraints[c][j] = Arrays.binarySearch(variables, 0, variableCount, constraints[c][j]);
+
+        // mines and tiles that are left once the frontier and the deduced tiles are taken out
+        int minesLeft = board.getMines() - board.getFlaggedCells() - mine.cardinality();
+        int hiddenTiles = tiles - board.getRevealedSafeCells() - board.getFlaggedCells();
+        int interior = Math.max(0, hiddenTiles - variableCount - safe.cardinality() - mine.cardinality());
+
+        // group the numbers into components that share undecided tiles
+        int[] parent = new int[variableCount];
+        for (int i = 0; i < parent.length; i++)
+            parent[i] = i;
+        for (int c = 0; c < constraintCount; c++)
+            for (int j = 1; j < constraints[c].length; j++)
+                parent[find(parent, constraints[c][j])] = find(parent, constraints[c][0]);
+
+        // the numbers of each component next to each other in byComponent, those of component g from start[g] on
+        int[] componentOf = new int[variableCount];
+        Arrays.fill(componentOf, -1);
+        int[] constraintComponent = new int[constraintCount];
+        int componentCount = 0;
+        for (int c = 0; c < constraintCount; c++)
+        {
+            int root = find(parent, constraints[c][0]);
+            if (componentOf[root] < 0)
+                componentOf[root] = componentCount++;
+            constraintComponent[c] = componentOf[root];
+        }
+        int[] start = new int[componentCount + 1];
+        for (int c = 0; c < constraintCount; c++)
+            start[constraintComponent[c] + 1]++;
+        for (int g = 0; g < componentCount; g++)
+            start[g + 1] += start[g];
+        int[] byComponent = new int[constraintCount];
+        int[] next = Arrays.copyOf(start, componentCount);
+        for (int c = 0; c < constraintCount; c++)
+            byComponent[next[constraintComponent[c]]++] = c;
+
+        // the components' own numbering of their tiles, -1 for tiles of no component being numbered
+        int[] local = componentOf;
+        Arrays.fill(local, -1);
+        Component[] components = new Component[componentCount];
+        Map<String, Component> usedMemo = new HashMap<>();
+        for (int g = 0; g < componentCount; g++)
+        {
+            components[g] = solveComponent(byComponent, start[g], start[g + 1], constraints, constraintMines, variables, local, usedMemo);
+            exact &= components[g].exact;
+        }
+        // only keep the components still on the board, so the memo never outgrows the frontier
+        memo = usedMemo;
+
+        probabilityCells = variables;
+        probabilityCount = variableCount;
+        if (probabilities.length < variableCount)
+            probabilities = new double[variables.length];
+        combine(components, minesLeft, interior);
+    }
+
+    private static int find(int[] parent, int i)
+    {
+        while (parent[i] != i)
+        {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // count the mine layouts of one component, or reuse the counts from an earlier solve if it looks exactly the same
+    // the component's numbers are byComponent[from] up to byComponent[to], its tiles are numbered in local in the order
+    // the numbers reach them, and local is left all -1 again for the next component
+    private Component solveComponent(int[] byComponent, int from, int to, int[][] constraints, int[] constraintMines,
+                                     int[] variables, int[] local, Map<String, Component> usedMemo)
+    {
+        int[] cells = new int[8];
+        int cellCount = 0;
+        int[][] componentConstraints = new int[to - from][];
+        int[] mines = new int[to - from];
+        StringBuilder key = new StringBuilder();
+        for (int c = 0; c < to - from; c++)
+        {
+            int[] indexes = constraints[byComponent[from + c]];
+            componentConstraints[c] = new int[indexes.length];
+            for (int j = 0; j < indexes.length; j++)
+            {
+                int index = indexes[j];
+                if (local[index] < 0)
+                {
+                    if (cellCount == cells.length)
+                        cells = Arrays.copyOf(cells, cells.length * 2);
+                    local[index] = cellCount;
+                    cells[cellCount++] = index;
+                }
+                componentConstraints[c][j] = local[index];
+                key.append(variables[index]).append(',');
+            }
+            mines[c] = constraintMines[byComponent[from + c]];
+            key.append('=').append(mines[c]).append(';');
+        }
+        // the tiles themselves instead of their indexes, which only hold for this solve
+        for (int i = 0; i < cellCount; i++)
+        {
+            local[cells[i]] = -1;
+            cells[i] = variables[cells[i]];
+        }
+
+        String memoKey = key.toString();
+        Component component = memo.get(memoKey);
+        if (component == null)
+        {
+            component = new Component();
+            component.cells = Arrays.copyOf(cells, cellCount);
+            enumerate(component, componentConstraints, mines);
+        }
+        usedMemo.put(memoKey, component);
+        return component;
+    }
+
+    // depth first search over every mine layout of the component that agrees with all its numbers
+    private void enumerate(Component component, int[][] constraints, int[] mines)
+    {
+        int variableCount = component.cells.length;
+        // which numbers each tile takes part in
+        int[] counts = new int[variableCount];
+        for (int[] constraint : constraints)
+            for (int v : constraint)
+                counts[v]++;
+        int[][] byVariable = new int[variableCount][];
+        for (int v = 0; v < variableCount; v++)
+            byVariable[v] = new int[counts[v]];
+        for (int c = 0; c < constraints.length; c++)
+            for (int v : constraints[c])
+                byVariable[v][--counts[v]] = c;
+
+        int[] unassigned = new int[constraints.length];
+        for (int c = 0; c < constraints.length; c++)
+            unassigned[c] = constraints[c].length;
+
+        Search search = new Search();
+        search.byVariable = byVariable;
+        search.mines = mines;
+        search.placed = new int[constraints.length];
+        search.unassigned = unassigned;
+        search.mined = new int[variableCount];
+        search.ways = new double[variableCount + 1];
+        search.cellWays = new double[variableCount][variableCount + 1];
+
+        if (search.run(0, 0))
+        {
+            component.ways = search.ways;
+            component.cellWays = search.cellWays;
+            normalize(component);
+        }
+        else
+            estimate(component, constraints, mines);
+    }
+
+    // state of the depth first search of one component
+    private static class Search
+    {
+        int[][] byVariable;
+        int[] mines;
+        int[] placed;
+        int[] unassigned;
+        // the tiles with a mine on them so far, as many as the mines placed
+        int[] mined;
+        double[] ways;
+        double[][] cellWays;
+        long steps;
+
+        // returns false if the search ran out of budget
+        // a layout found costs a step for every mine in it as well, so the budget bounds the time taken and not just the calls
+        boolean run(int variable, int placedMines)
+        {
+            if (++steps > SEARCH_BUDGET)
+                return false;
+            if (variable == mined.length)
+            {
+                ways[placedMines]++;
+                for (int i = 0; i < placedMines; i++)
+                    cellWays[mined[i]][placedMines]++;
+                steps += placedMines;
+                return true;
+            }
+
+            for (int value = 0; value <= 1; value++)
+            {
+                if (assign(variable, value))
+                {
+                    mined[placedMines] = variable;
+                    if (!run(variable + 1, placedMines + value))
+                        return false;
+                }
+                unassign(variable, value);
+            }
+            return true;
+        }
+
+        // give the tile a value and check that no number it touches is now over or under its count
+        boolean assign(int variable, int value)
+        {
+            boolean valid = true;
+            for (int c : byVariable[variable])
+            {
+                placed[c] += value;
+                unassigned[c]--;
+                if (placed[c] > mines[c] || placed[c] + unassigned[c] < mines[c])
+                    valid = false;
+            }
+            return valid;
+        }
+
+        void unassign(int variable, int value)
+        {
+            for (int c : byVariable[variable])
+            {
+                placed[c] -= value;
+                unassigned[c]++;
+            }
+        }
+    }
+
+    // scale the counts so the biggest is 1, only their ratios matter and this keeps big components from overflowing
+    private static void normalize(Component component)
+    {
+        double max = 0;
+        for (double w : component.ways)
+            max = Math.max(max, w);
+        if (max == 0)
+            return;
+        for (int k = 0; k < component.ways.length; k++)
+        {
+            component.ways[k] /= max;
+            for (double[] cell : component.cellWays)
+                cell[k] /= max;
+        }
+    }
+
+    // fallback for components too big to search: each tile gets the average share of mines of the numbers around it
+    // and the component is treated as always holding the expected number of mines
+    private static void estimate(Component component, int[][] constraints, int[] mines)
+    {
+        int variableCount = component.cells.length;
+        double[] sum = new double[variableCount];
+        int[] seen = new int[variableCount];
+        for (int c = 0; c < constraints.length; c++)
+        {
+            for (int v : constraints[c])
+            {
+                sum[v] += (double) mines[c] / constraints[c].length;
+                seen[v]++;
+            }
+        }
+
+        double expected = 0;
+        for (int v = 0; v < variableCount; v++)
+            expected += sum[v] / seen[v];
+        int k = (int) Math.round(expected);
+
+        component.ways = new double[variableCount + 1];
+        component.cellWays = new double[variableCount][variableCount + 1];
+        component.ways[k] = 1;
+        for (int v = 0; v < variableCount; v++)
+            component.cellWays[v][k] = sum[v] / seen[v];
+        component.exact = false;
+    }
+
+    // combine the components with the interior: a layout with t mines on the frontier leaves C(interior, minesLeft - t)
+    // ways to place the rest, so every frontier count is weighted by that
+    private void combine(Component[] components, int minesLeft, int interior)
+    {
+        int count = components.length;
+        // prefix[i] is the distribution of mines over the first i components, suffix[i] over the ones from i on
+        double[][] prefix = new double[count + 1][];
+        double[][] suffix = new double[count + 1][];
+        prefix[0] = new double[] {1};
+        suffix[count] = new double[] {1};
+        for (int i = 0; i < count; i++)
+            prefix[i + 1] = convolve(prefix[i], components[i].ways);
+        for (int i = count - 1; i >= 0; i--)
+            suffix[i] = convolve(components[i].ways, suffix[i + 1]);
+
+        double[] weight = interiorWeights(prefix[count].length, minesLeft, interior);
+        double total = 0;
+        double interiorMines = 0;
+        for (int t = 0; t < prefix[count].length; t++)
+        {
+            total += prefix[count][t] * weight[t];
+            if (interior > 0)
+                interiorMines += prefix[count][t] * weight[t] * (minesLeft - t) / interior;
+        }
+
+        // the flags or numbers contradict each other, nothing sensible can be said
+        if (total <= 0)
+        {
+            interiorProbability = interior > 0 ? Math.min(1, Math.max(0, (double) minesLeft / interior)) : 0;
+            Arrays.fill(probabilities, 0, probabilityCount, interiorProbability);
+            return;
+        }
+        interiorProbability = interiorMines / total;
+
+        for (int i = 0; i < count; i++)
+        {
+            Component component = components[i];
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            // the weight of the component holding k mines, summed over everything the other components can hold
+            double[] given = new double[component.ways.length];
+            for (int k = 0; k < given.length; k++)
+                for (int t = 0; t < others.length && k + t < weight.length; t++)
+                    given[k] += others[t] * weight[k + t];
+
+            for (int v = 0; v < component.cells.length; v++)
+            {
+                double mineWeight = 0;
+                for (int k = 0; k < given.length; k++)
+                    mineWeight += component.cellWays[v][k] * given[k];
+                probabilities[Arrays.binarySearch(probabilityCells, 0, probabilityCount, component.cells[v])] = mineWeight / total;
+            }
+        }
+    }
+
+    private static double[] convolve(double[] a, double[] b)
+    {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++)
+            if (a[i] != 0)
+                for (int j = 0; j < b.length; j++)
+                    result[i + j] += a[i] * b[j];
+        return result;
+    }
+
+    // C(interior, minesLeft - t) for every frontier mine count t, scaled so the biggest is 1
+    private double[] interiorWeights(int length, int minesLeft, int interior)
+    {
+        if (logFactorial.length <= interior)
+        {
+            int old = logFactorial.length;
+            logFactorial = Arrays.copyOf(logFactorial, interior + 1);
+            for (int n = old; n <= interior; n++)
+                logFactorial[n] = logFactorial[n - 1] + Math.log(n);
+        }
+
+        double[] logWeight = new double[length];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < length; t++)
+        {
+            int rest = minesLeft - t;
+            logWeight[t] = rest < 0 || rest > interior ? Double.NEGATIVE_INFINITY
+                : logFactorial[interior] - logFactorial[rest] - logFactorial[interior - rest];
+            max = Math.max(max, logWeight[t]);
+        }
+
+        double[] weight = new double[length];
+        if (max != Double.NEGATIVE_INFINITY)
+            for (int t = 0; t < length; t++)
+                weight[t] = Math.exp(logWeight[t] - max);
+        return weight;
+    }
+
+    // check if the last solve found the tile to be certainly safe
+    public boolean isSafe(int row, int column) {
+        return safe.get(row * columns + column);
+    }
+
+    // check if the last solve found the tile to be certainly a mine
+    public boolean isMine(int row, int column) {
+        return mine.get(row * columns + column);
+    }
+
+    // next certainly safe tile at or after the given flat index, -1 if there are none
+    public int nextSafeCell(int fromCell) {
+        return safe.nextSetBit(fromCell);
+    }
+
+    // next certainly mined tile at or after the given flat index, -1 if there are none
+    public int nextMineCell(int fromCell) {
+        return mine.nextSetBit(fromCell);
+    }
+
+    // chance of the tile being a mine, as of the last solve
+    public double getProbability(int row, int column)
+    {
+        int cell = row * columns + column;
+        if (!isHidden(cell) || safe.get(cell))
+            return isKnownMine(cell) ? 1 : 0;
+        if (mine.get(cell))
+            return 1;
+        int index = Arrays.binarySearch(probabilityCells, 0, probabilityCount, cell);
+        return index >= 0 ? probabilities[index] : interiorProbability;
+    }
+
+    // false if some probabilities of the last solve are estimates rather than exact
+    public boolean isExact() {
+        return exact;
+    }
+
+    // the best tile to click next as a flat index: a certainly safe one if there is one, otherwise the least likely mine
+    // returns -1 if there is no hidden tile left
+    public int getBestCell()
+    {
+        int best = safe.nextSetBit(0);
+        if (best >= 0)
+            return best;
+
+        double bestProbability = 2;
+        for (int i = 0; i < probabilityCount; i++)
+        {
+            if (probabilities[i] < bestProbability)
+            {
+                bestProbability = probabilities[i];
+                best = probabilityCells[i];
+            }
+        }
+
+        // an interior tile is better than anything on the frontier, any of them will do
+        if (best < 0 || interiorProbability < bestProbability)
+        {
+            for (int cell = 0; cell < tiles; cell++)
+            {
+                if (isHidden(cell) && !mine.get(cell) && Arrays.binarySearch(probabilityCells, 0, probabilityCount, cell) < 0)
+                    return cell;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// undo and redo for practice games
+// a move is kept as just the tiles it changed, each as it was before and after, plus the flag and shield counters around it
+// so undoing or redoing a move costs as much as the move changed, however big the board is,
+// and the history grows with the moves played rather than holding a copy of the board per move
+// once it holds more than MAX_MOVES moves, or more than MAX_TILES changed tiles between them, the oldest moves are dropped
+public class MoveHistory
+{
+    public static final int MAX_MOVES = 10_000;
+    public static final int MAX_TILES = 1 << 22;
+
+    // one move of the game, as a difference between the game before and after it
+    // no move can be made once the game is over, so before a move the game was always still going
+    static class Move
+    {
+        final int[] cells;
+        final byte[] before;
+        final byte[] after;
+        final int flagsBefore;
+        final int shieldsBefore;
+        final int flagsAfter;
+        final int shieldsAfter;
+        final boolean overAfter;
+
+        Move(int[] cells, byte[] before, byte[] after, int flagsBefore, int shieldsBefore, int flagsAfter, int shieldsAfter, boolean overAfter)
+        {
+            this.cells = cells;
+            this.before = before;
+            this.after = after;
+            this.flagsBefore = flagsBefore;
+            this.shieldsBefore = shieldsBefore;
+            this.flagsAfter = flagsAfter;
+            this.shieldsAfter = shieldsAfter;
+            this.overAfter = overAfter;
+        }
+    }
+
+    // newest move first in both
+    private Deque<Move> undoMoves = new ArrayDeque<>();
+    private Deque<Move> redoMoves = new ArrayDeque<>();
+    // changed tiles held by the moves of both stacks
+    private long tiles;
+
+    // keep a move that was just played, which makes the moves undone before it impossible to redo
+    void add(Move move)
+    {
+        for (Move undone : redoMoves)
+            tiles -= undone.cells.length;
+        redoMoves.clear();
+
+        undoMoves.push(move);
+        tiles += move.cells.length;
+        // the newest move is always kept, even one bigger than MAX_TILES on its own
+        while (undoMoves.size() > 1 && (undoMoves.size() > MAX_MOVES || tiles > MAX_TILES))
+            tiles -= undoMoves.removeLast().cells.length;
+    }
+
+    // the move to take back, which then becomes the next one to redo, or null if there is none
+    Move undo()
+    {
+        Move move = undoMoves.poll();
+        if (move != null)
+            redoMoves.push(move);
+        return move;
+    }
+
+    // the move to play again, or null if there is none
+    Move redo()
+    {
+        Move move = redoMoves.poll();
+        if (move != null)
+            undoMoves.push(move);
+        return move;
+    }
+
+    public boolean canUndo() {
+        return !undoMoves.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoMoves.isEmpty();
+    }
+
+    // number of moves that can be undone
+    public int getUndoCount() {
+        return undoMoves.size();
+    }
+
+    // changed tiles held across every move that can be undone or redone
+    public long getTileCount() {
+        return tiles;
+    }
+
+    // forget every move, e.g. when a new game starts
+    public void clear()
+    {
+        undoMoves.clear();
+        redoMoves.clear();
+        tiles = 0;
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// append-only record of one game, written while it is played so it can be replayed move by move later
+//
+// file layout:
+//   int     magic "MSWL", then a byte with the format version
+//   varint  rows, varint columns, varint number of mines (version 1 logs have a single varint size for square boards)
+//   then one record per move:
+//     varint  (tile index << 2) | action, the tile index being row * columns + column
+//     varint  milliseconds since the previous record
+//     MINES records are followed by a zigzag varint seed and a byte with the safe zone
+// varints are 7 bits per byte, low bits first, with the top bit set on every byte but the last
+public class MoveLog implements AutoCloseable
+{
+    public static final int MAGIC = 0x4D53574C;
+    public static final int VERSION = 2;
+
+    // what a record stands for, kept to 2 bits
+    public static final int REVEAL = 0;
+    public static final int CHORD = 1;
+    public static final int FLAG = 2;
+    // the mines were placed on this tile's click, from the seed and safe zone that follow
+    public static final int MINES = 3;
+
+    // the file to create and its header, until the first record is written, null after that or once closed
+    private Path path;
+    private int rows;
+    private int columns;
+    private int mines;
+    private OutputStream out;
+    private boolean written;
+    private long lastMoveNanos = System.nanoTime();
+
+    // start a new log, replacing whatever file was there
+    // the file (and its folder) is only created with the first record, so a game that is never played leaves nothing behind
+    public MoveLog(Path path, int rows, int columns, int mines)
+    {
+        this.path = path;
+        this.rows = rows;
+        this.columns = columns;
+        this.mines = mines;
+    }
+
+    // whether the file was created, i.e. the game had a move
+    public boolean isWritten() {
+        return written;
+    }
+
+    // record the mines being placed by a first click on the tile
+    public void mines(int cell, long seed, MinesweeperBoard.SafeZone safeZone)
+    {
+        if (!open())
+            return;
+        try {
+            writeRecord(cell, MINES);
+            writeVarLong(seed << 1 ^ seed >> 63);
+            out.write(safeZone.ordinal());
+        }
+        catch (IOException ex) {
+            failed(ex);
+        }
+    }
+
+    // record a click on the tile
+    // the bytes of a move are gathered in the buffer and handed over in one write, at the end of each move
+    // so a crash never loses more than the move it happened in
+    public void move(int cell, int action)
+    {
+        if (!open())
+            return;
+        try {
+            writeRecord(cell, action);
+            out.flush();
+        }
+        catch (IOException ex) {
+            failed(ex);
+        }
+    }
+
+    // create the file and write the header, the first time there is a record for it
+    // returns whether there is a file to write to, there isn't once the log is closed or has failed
+    private boolean open()
+    {
+        if (out != null)
+            return true;
+        if (path == null)
+            return false;
+        try {
+            Path folder = path.toAbsolutePath().getParent();
+            if (folder != null)
+                Files.createDirectories(folder);
+            out = new BufferedOutputStream(Files.newOutputStream(path));
+            path = null;
+            written = true;
+            for (int shift = 24; shift >= 0; shift -= 8)
+                out.write(MAGIC >>> shift);
+            out.write(VERSION);
+            writeVarLong(rows);
+            writeVarLong(columns);
+            writeVarLong(mines);
+            return true;
+        }
+        catch (IOException ex) {
+            failed(ex);
+            return false;
+        }
+    }
+
+    private void writeRecord(int cell, int action) throws IOException
+    {
+        long now = System.nanoTime();
+        writeVarLong((long) cell << 2 | action);
+        writeVarLong((now - lastMoveNanos) / 1_000_000);
+        lastMoveNanos = now;
+    }
+
+    private void writeVarLong(long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // a log that can't be written to is given up on, the game itself carries on
+    private void failed(IOException ex)
+    {
+        ex.printStackTrace();
+        close();
+    }
+
+    @Override
+    public void close()
+    {
+        path = null;
+        if (out == null)
+            return;
+        try {
+            out.close();
+        }
+        catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// reads a log written by MoveLog one record at a time, so even a very long game is never loaded whole
+// usage: java MoveLogReader <log file> [speed]
+// replays the game and prints every move, speed 1 plays it back in real time, 0 (the default) as fast as possible
+public class MoveLogReader implements AutoCloseable
+{
+    // told about every move of a replay, right after the game played it
+    public interface MoveListener
+    {
+        void movePlayed(MinesweeperGame game, int row, int column, int action, MinesweeperGame.Outcome outcome);
+    }
+
+    private InputStream in;
+    private int rows;
+    private int columns;
+    private int mines;
+
+    // the record read last
+    private int cell;
+    private int action;
+    private long delayMillis;
+    private long elapsedMillis;
+    private long seed;
+    private MinesweeperBoard.SafeZone safeZone;
+
+    // open the log and read its header
+    public MoveLogReader(Path path) throws IOException
+    {
+        in = new BufferedInputStream(Files.newInputStream(path));
+        int magic = 0;
+        for (int i = 0; i < 4; i++)
+            magic = magic << 8 | readByte();
+        if (magic != MoveLog.MAGIC)
+            throw new IOException(path + " is not a Minesweeper move log");
+        int version = readByte();
+        if (version != MoveLog.VERSION && version != 1)
+            throw new IOException(path + " was written in format version " + version + ", only versions 1 to " + MoveLog.VERSION + " can be read");
+        long rows = readVarLong();
+        long columns = version == 1 ? rows : readVarLong();
+        long mines = readVarLong();
+        // a board that couldn't have been played, from a damaged header, would fail somewhere in the middle of the replay
+        if (rows <= 0 || columns <= 0 || rows * columns > Integer.MAX_VALUE || mines < 0 || mines >= rows * columns)
+            throw new IOException(path + " is damaged, a " + rows + "x" + columns + " board with " + mines + " mines can't be played");
+        this.rows = (int) rows;
+        this.columns = (int) columns;
+        this.mines = (int) mines;
+    }
+
+    // move on to the next record, returns false once the log is over
+    // a log cut short in the middle of a record (e.g. by a crash) ends at the last whole record,
+    // a record that can't have been written by MoveLog throws an IOException
+    public boolean next() throws IOException
+    {
+        try {
+            int first = in.read();
+            if (first < 0)
+                return false;
+            long value = readVarLong(first);
+            if (value >>> 2 >= (long) rows * columns)
+                throw new IOException("Move log is damaged, a record is for tile " + (value >>> 2) + " of a " + rows + "x" + columns + " board");
+            cell = (int) (value >>> 2);
+            action = (int) (value & 3);
+            delayMillis = readVarLong();
+            elapsedMillis += delayMillis;
+            if (action == MoveLog.MINES)
+            {
+                long zigzag = readVarLong();
+                seed = zigzag >>> 1 ^ -(zigzag & 1);
+                int zone = readByte();
+                if (zone >= MinesweeperBoard.SafeZone.values().length)
+                    throw new IOException("Move log is damaged, a record has safe zone " + zone);
+                safeZone = MinesweeperBoard.SafeZone.values()[zone];
+            }
+            return true;
+        }
+        catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    // play the whole game back from the log and return it as it ended up
+    // speed 1 waits between moves as long as the player did, 2 twice as fast and so on, 0 doesn't wait at all
+    // the listener (if not null) is called after every move
+    public MinesweeperGame replay(double speed, MoveListener listener) throws IOException, InterruptedException
+    {
+        MinesweeperGame game = new MinesweeperGame(rows, columns, mines);
+        while (next())
+        {
+            if (speed > 0 && delayMillis > 0)
+                Thread.sleep((long) (delayMillis / speed));
+
+            int row = cell / columns;
+            int column = cell % columns;
+            MinesweeperGame.Outcome outcome;
+            switch (action)
+            {
+                case MoveLog.MINES:
+                    // the reveal right after this record places the mines exactly as they were
+                    game.setNextSeed(seed);
+                    game.setNoGuess(safeZone == MinesweeperBoard.SafeZone.AREA);
+                    continue;
+                case MoveLog.REVEAL:
+                    outcome = game.reveal(row, column);
+                    break;
+                case MoveLog.CHORD:
+                    outcome = game.chord(row, column);
+                    break;
+                default:
+                    outcome = game.flag(row, column);
+                    break;
+            }
+            if (listener != null)
+                listener.movePlayed(game, row, column, action, outcome);
+        }
+        return game;
+    }
+
+    private int readByte() throws IOException
+    {
+        int value = in.read();
+        if (value < 0)
+            throw new EOFException();
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        return readVarLong(readByte());
+    }
+
+    private long readVarLong(int first) throws IOException
+    {
+        long value = first & 0x7F;
+        for (int shift = 7, b = first; (b & 0x80) != 0; shift += 7)
+        {
+            // a long takes at most 10 bytes
+            if (shift > 63)
+                throw new IOException("Move log is damaged, a number in it runs on past 64 bits");
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    // rows of the board the game was played on
+    public int getRows() {
+        return rows;
+    }
+
+    // columns of the board the game was played on
+    public int getColumns() {
+        return columns;
+    }
+
+    // number of mines on the board the game was played on
+    public int getMines() {
+        return mines;
+    }
+
+    // tile of the last record, as a flat index (row * columns + column)
+    public int getCell() {
+        return cell;
+    }
+
+    // action of the last record, one of the MoveLog constants
+    public int getAction() {
+        return action;
+    }
+
+    // milliseconds between the record before and the last one
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    // milliseconds from the start of the game up to the last record
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // seed of the last MINES record
+    public long getSeed() {
+        return seed;
+    }
+
+    // safe zone of the last MINES record
+    public MinesweeperBoard.SafeZone getSafeZone() {
+        return safeZone;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length == 0)
+        {
+            System.out.println("usage: java MoveLogReader <log file> [speed]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        String[] actions = {"reveal", "chord", "flag"};
+
+        try (MoveLogReader reader = new MoveLogReader(Paths.get(args[0])))
+        {
+            System.out.println(reader.getRows() + "x" + reader.getColumns() + " board, " + reader.getMines() + " mines");
+            MinesweeperGame game = reader.replay(speed, (played, row, column, action, outcome) -> {
+                System.out.printf("%8.2fs %-6s %d,%d %s%n", reader.getElapsedMillis() / 1000.0, actions[action], row, column, outcome);
+            });
+            System.out.println("seed " + game.getSeed() + ", " + (game.isOver() ? "finished" : "unfinished") + " after " + reader.getElapsedMillis() / 1000.0 + "s");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class NoGuessGenerator
+{
+    // how long to keep looking for a board that can be cleared without guessing before settling for a normal one
+    // the first click waits for this, so it is kept to a pause the player barely notices
+    private static final long TIME_LIMIT_NANOS = 200_000_000L;
+    // bigger boards take too long to check, they are always generated normally
+    public static final int MAX_TILES = 1 << 16;
+    // marks that no seed has been found yet
+    private static final long NOT_FOUND = Long.MIN_VALUE;
+
+    // find a seed for MinesweeperBoard.placeMines that gives a board the solver can clear from the first click without guessing
+    // candidate boards are tried on every core at once, the first one found wins and the other workers stop right away
+    // returns nothing if no such board turns up within the time limit, the caller then has to settle for a normal board
+    public static OptionalLong findSeed(int rows, int columns, int mines, int initialRow, int initialColumn, MinesweeperBoard.SafeZone safeZone)
+    {
+        AtomicLong found = new AtomicLong(NOT_FOUND);
+        long deadline = System.nanoTime() + TIME_LIMIT_NANOS;
+
+        int workers = Runtime.getRuntime().availableProcessors();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++)
+        {
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                while (found.get() == NOT_FOUND && System.nanoTime() < deadline)
+                {
+                    long seed = ThreadLocalRandom.current().nextLong();
+                    if (seed != NOT_FOUND && isSolvable(rows, columns, mines, initialRow, initialColumn, seed, safeZone, deadline))
+                        found.compareAndSet(NOT_FOUND, seed);
+                }
+            });
+        }
+        CompletableFuture.allOf(tasks).join();
+
+        long seed = found.get();
+        return seed != NOT_FOUND ? OptionalLong.of(seed) : OptionalLong.empty();
+    }
+
+    // play the board from the first click using only moves the solver is certain of
+    public static boolean isSolvable(int rows, int columns, int mines, int initialRow, int initialColumn, long seed, MinesweeperBoard.SafeZone safeZone) {
+        return isSolvable(rows, columns, mines, initialRow, initialColumn, seed, safeZone, Long.MAX_VALUE);
+    }
+
+    // same, giving up (as not solvable) once the deadline has passed, so one big board can't hold the search past its time limit
+    private static boolean isSolvable(int rows, int columns, int mines, int initialRow, int initialColumn, long seed,
+                                      MinesweeperBoard.SafeZone safeZone, long deadline)
+    {
+        MinesweeperBoard board = new MinesweeperBoard(rows, columns, mines);
+        board.placeMines(initialRow, initialColumn, seed, safeZone);
+        board.reveal(initialRow, initialColumn);
+
+        MinesweeperSolver solver = new MinesweeperSolver(board);
+        solver.update();
+        while (!board.isCleared())
+        {
+            if (System.nanoTime() >= deadline)
+                return false;
+            solver.deduce();
+            boolean progress = false;
+
+            // flag every certain mine and reveal every certain safe tile
+            for (int cell = solver.nextMineCell(0); cell >= 0; cell = solver.nextMineCell(cell + 1))
+            {
+                board.setFlagged(cell / columns, cell % columns, true);
+                solver.cellChanged(cell / columns, cell % columns);
+                progress = true;
+            }
+            for (int cell = solver.nextSafeCell(0); cell >= 0; cell = solver.nextSafeCell(cell + 1))
+            {
+                if (board.reveal(cell / columns, cell % columns) > 0)
+                {
+                    solver.update();
+                    progress = true;
+                }
+            }
+
+            // the numbers alone are stuck, the remaining mine total can still prove a tile safe
+            if (!progress)
+            {
+                solver.solve();
+                int best = solver.getBestCell();
+                if (!solver.isExact() || best < 0 || solver.getProbability(best / columns, best % columns) > 0)
+                    return false;
+                board.reveal(best / columns, best % columns);
+                solver.update();
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,273 @@
+import javax.swing.*;
+
+// shows big changes to the board a slice at a time, as a wave spreading out from the tile that was clicked
+// the game itself already changed in one go on the game thread, only what the window shows catches up over the next frames,
+// so clicks keep being taken and a win or a loss is known at once
+// a slice stops once it has used up its budget, so the event thread is never held up for much longer than that per frame
+// small changes, and ones that weren't made by a move (undo, loading a game), are shown at once
+// only ever used on the event dispatch thread
+public class RevealScheduler
+{
+    // time a slice may take; set with -Dminesweeper.revealBudget=<microseconds>, 0 shows every change at once
+    public static final long DEFAULT_BUDGET_NANOS = Long.getLong("minesweeper.revealBudget", 4000) * 1000;
+    // changes smaller than this are shown at once, they are quick to show and too small to see a wave in
+    public static final int MIN_TILES = 4096;
+    private static final int FRAME_MILLIS = 16;
+    // tiles shown between looks at the clock
+    private static final int CHUNK = 1024;
+
+    private BoardCanvas canvas;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private Timer timer = new Timer(FRAME_MILLIS, e -> slice());
+
+    // the window's view, what is on screen
+    private byte[] view;
+    private int rows;
+    private int columns;
+    private int originRow;
+    private int originColumn;
+    // a wave of changed tiles: nearest to the origin first, each with its new sprite, and how many are on screen so far
+    private int[] cells;
+    private byte[] sprites;
+    private int next;
+    // or a wave over a whole new view: the rings of tiles around the origin are copied out of it one by one
+    private byte[] target;
+    private int ring;
+    private int lastRing;
+    private long waveStart;
+
+    public RevealScheduler(BoardCanvas canvas)
+    {
+        this.canvas = canvas;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = Math.max(0, budgetNanos);
+    }
+
+    // a wave is still on its way out
+    public boolean isRunning() {
+        return cells != null || target != null;
+    }
+
+    // show the changed tiles, right away or as a wave from the origin (row * columns + column, -1 for none)
+    // a wave still going is finished first, so tiles are always shown in the order they changed
+    public void showCells(byte[] view, int rows, int columns, int[] cells, byte[] sprites, int origin)
+    {
+        finish();
+        this.view = view;
+        this.rows = rows;
+        this.columns = columns;
+        if (!animate(cells.length, origin))
+        {
+            // one repaint of the rectangle around every changed tile, rather than one per tile of a big opening
+            int firstRow = Integer.MAX_VALUE, firstColumn = Integer.MAX_VALUE, lastRow = -1, lastColumn = -1;
+            for (int i = 0; i < cells.length; i++)
+            {
+                view[cells[i]] = sprites[i];
+                int row = cells[i] / columns;
+                int column = cells[i] % columns;
+                firstRow = Math.min(firstRow, row);
+                lastRow = Math.max(lastRow, row);
+                firstColumn = Math.min(firstColumn, column);
+                lastColumn = Math.max(lastColumn, column);
+            }
+            if (lastRow >= 0)
+                canvas.repaintTiles(firstRow, firstColumn, lastRow, lastColumn);
+            return;
+        }
+
+        // counting sort on the distance from the origin, the rings are at most as many as the longer side of the board
+        int[] distances = new int[cells.length];
+        int[] starts = new int[lastRing + 2];
+        for (int i = 0; i < cells.length; i++)
+        {
+            distances[i] = Math.max(Math.abs(cells[i] / columns - originRow), Math.abs(cells[i] % columns - originColumn));
+            starts[distances[i] + 1]++;
+        }
+        for (int distance = 0; distance <= lastRing; distance++)
+            starts[distance + 1] += starts[distance];
+        this.cells = new int[cells.length];
+        this.sprites = new byte[cells.length];
+        for (int i = 0; i < cells.length; i++)
+        {
+            int position = starts[distances[i]]++;
+            this.cells[position] = cells[i];
+            this.sprites[position] = sprites[i];
+        }
+        next = 0;
+        start();
+    }
+
+    // show a whole new view, e.g. every mine at the end of a game
+    // returns the array the window now shows: the new view itself if it is shown at once,
+    // otherwise the old one, which the rings around the origin are copied into until it matches
+    public byte[] showView(byte[] view, byte[] target, int rows, int columns, int origin)
+    {
+        finish();
+        this.rows = rows;
+        this.columns = columns;
+        if (view == null || view.length != target.length || !animate(target.length, origin))
+        {
+            canvas.repaint();
+            return target;
+        }
+        this.view = view;
+        this.target = target;
+        ring = 0;
+        start();
+        return view;
+    }
+
+    // drop the wave without showing the rest, e.g. when a new game hides every tile anyway
+    public void cancel()
+    {
+        timer.stop();
+        cells = null;
+        sprites = null;
+        target = null;
+    }
+
+    // show everything left of the wave at once
+    public void finish()
+    {
+        if (!isRunning())
+            return;
+        if (target != null)
+            System.arraycopy(target, 0, view, 0, view.length);
+        else
+            for (int i = next; i < cells.length; i++)
+                view[cells[i]] = sprites[i];
+        canvas.repaint();
+        done();
+    }
+
+    // whether a change is big enough to be worth a wave, which also sets the wave up around the origin
+    private boolean animate(int tiles, int origin)
+    {
+        if (budgetNanos == 0 || tiles < MIN_TILES || origin < 0 || origin >= rows * columns)
+            return false;
+        originRow = origin / columns;
+        originColumn = origin % columns;
+        lastRing = Math.max(Math.max(originRow, rows - 1 - originRow), Math.max(originColumn, columns - 1 - originColumn));
+        return true;
+    }
+
+    // the first slice goes out with the batch that started the wave, the rest once a frame
+    private void start()
+    {
+        waveStart = System.nanoTime();
+        slice();
+        if (isRunning())
+            timer.restart();
+    }
+
+    private void slice()
+    {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int shown;
+        if (target != null)
+        {
+            shown = 0;
+            do
+                shown += copyRing(ring++);
+            while (ring <= lastRing && System.nanoTime() < deadline);
+            // the square around the last ring copied covers all of this slice's rings
+            int reach = ring - 1;
+            canvas.repaintTiles(Math.max(0, originRow - reach), Math.max(0, originColumn - reach),
+                Math.min(rows - 1, originRow + reach), Math.min(columns - 1, originColumn + reach));
+            if (ring > lastRing)
+                target = null;
+        }
+        else
+        {
+            int first = next;
+            int firstRow = Integer.MAX_VALUE, firstColumn = Integer.MAX_VALUE, lastRow = -1, lastColumn = -1;
+            do
+            {
+                for (int end = Math.min(cells.length, next + CHUNK); next < end; next++)
+                {
+                    view[cells[next]] = sprites[next];
+                    int row = cells[next] / columns;
+                    int column = cells[next] % columns;
+                    firstRow = Math.min(firstRow, row);
+                    lastRow = Math.max(lastRow, row);
+                    firstColumn = Math.min(firstColumn, column);
+                    lastColumn = Math.max(lastColumn, column);
+                }
+            }
+            while (next < cells.length && System.nanoTime() < deadline);
+            shown = next - first;
+            canvas.repaintTiles(firstRow, firstColumn, lastRow, lastColumn);
+            if (next == cells.length)
+            {
+                cells = null;
+                sprites = null;
+            }
+        }
+
+        if (Metrics.ENABLED)
+        {
+            Metrics.REVEAL_SLICE.record(System.nanoTime() - start);
+            Metrics.REVEAL_TILES.add(shown);
+        }
+        if (!isRunning())
+            done();
+    }
+
+    // copy the tiles at the given distance from the origin, the edge of a square around it clipped to the board
+    // returns the number of tiles copied
+    private int copyRing(int distance)
+    {
+        int firstColumn = Math.max(0, originColumn - distance);
+        int lastColumn = Math.min(columns - 1, originColumn + distance);
+        int width = lastColumn - firstColumn + 1;
+        int copied = 0;
+        // the top and bottom edges are whole runs of a row
+        if (originRow - distance >= 0)
+        {
+            int cell = (originRow - distance) * columns + firstColumn;
+            System.arraycopy(target, cell, view, cell, width);
+            copied += width;
+        }
+        if (distance > 0 && originRow + distance < rows)
+        {
+            int cell = (originRow + distance) * columns + firstColumn;
+            System.arraycopy(target, cell, view, cell, width);
+            copied += width;
+        }
+        // the left and right edges are a tile per row in between
+        if (distance > 0)
+        {
+            for (int row = Math.max(0, originRow - distance + 1); row <= Math.min(rows - 1, originRow + distance - 1); row++)
+            {
+                if (originColumn - distance >= 0)
+                {
+                    view[row * columns + originColumn - distance] = target[row * columns + originColumn - distance];
+                    copied++;
+                }
+                if (originColumn + distance < columns)
+                {
+                    view[row * columns + originColumn + distance] = target[row * columns + originColumn + distance];
+                    copied++;
+                }
+            }
+        }
+        return copied;
+    }
+
+    private void done()
+    {
+        timer.stop();
+        if (Metrics.ENABLED)
+            Metrics.REVEAL_WAVE.record(System.nanoTime() - waveStart);
+        cells = null;
+        sprites = null;
+        target = null;
+    }
+}
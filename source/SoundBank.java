@@ -0,0 +1,157 @@
+import javax.sound.sampled.*;
+import java.io.*;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SoundBank
+{
+    // how many copies of each sound can play over each other, e.g. when flagging quickly
+    private static final int VOICES_PER_SOUND = 3;
+    // how many sounds can play at once in total, anything past that is skipped
+    private static final int MAX_VOICES = 8;
+
+    private static final String FOLDER = "audio/";
+
+    // every sound in the asset manifest, keyed by its path relative to the audio folder (e.g. "Flag/FlagPlaced.wav")
+    // each sound gets a small pool of clips that are opened once and then just rewound and replayed
+    private Map<String, Clip[]> pools = new ConcurrentHashMap<>();
+    // the clip each sound plays next, the lazy loader thread and the event thread can both be playing a sound at once
+    private Map<String, AtomicInteger> nextVoice = new ConcurrentHashMap<>();
+    // sounds the manifest marks lazy, and the ones of those that have been asked for so far
+    private Set<String> lazy = ConcurrentHashMap.newKeySet();
+    private Set<String> requested = ConcurrentHashMap.newKeySet();
+    // set once no clip can be opened at all, e.g. on a machine without sound, so nothing else is tried
+    private volatile boolean silent;
+
+    // default
+    public SoundBank()
+    {
+        // decode the sounds on the asset loader threads, in parallel, so the window can come up without waiting on disk
+        // sounds that are played before they finish loading are simply skipped
+        for (String path : Assets.list(FOLDER))
+        {
+            if (!path.endsWith(".wav"))
+                continue;
+            String name = path.substring(FOLDER.length());
+            if (Assets.isLazy(path))
+                lazy.add(name);
+            else
+                Assets.LOADER.execute(() -> load(name));
+        }
+    }
+
+    // decode the file once into memory, then open every clip of its pool from that same data
+    // a sound that can't be loaded is reported once and then never plays
+    private void load(String name)
+    {
+        if (silent)
+            return;
+        URL url = Assets.find(FOLDER + name);
+        if (url == null)
+        {
+            Assets.missing(FOLDER + name, "not found");
+            return;
+        }
+
+        MinesweeperEvents.SoundOpen event = null;
+        long start = 0;
+        if (Metrics.ENABLED)
+        {
+            event = new MinesweeperEvents.SoundOpen();
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(url.openStream())))
+        {
+            AudioFormat format = audioInputStream.getFormat();
+            byte[] data = audioInputStream.readAllBytes();
+
+            Clip[] pool = openPool(format, data);
+            nextVoice.put(name, new AtomicInteger());
+            pools.put(name, pool);
+
+            if (Metrics.ENABLED)
+            {
+                Metrics.SOUND_OPEN.record(System.nanoTime() - start);
+                event.sound = name;
+                event.bytes = data.length;
+                event.commit();
+            }
+        }
+        catch (LineUnavailableException | IllegalArgumentException ex) {
+            // no line to play on, the game carries on without sound
+            silent = true;
+            Assets.missing(FOLDER, "can't be played, there is no sound output (" + ex.getMessage() + ")");
+        }
+        catch (UnsupportedAudioFileException | IOException ex) {
+            Assets.missing(FOLDER + name, ex.getMessage());
+        }
+    }
+
+    // open every clip of a sound's pool on the same audio
+    // if one can't be had or opened the ones already opened are closed again, each holds a line of the sound output
+    private static Clip[] openPool(AudioFormat format, byte[] data) throws LineUnavailableException
+    {
+        Clip[] pool = new Clip[VOICES_PER_SOUND];
+        try {
+            for (int voice = 0; voice < VOICES_PER_SOUND; voice++)
+            {
+                pool[voice] = AudioSystem.getClip();
+                pool[voice].open(format, data, 0, data.length);
+            }
+            return pool;
+        }
+        catch (LineUnavailableException | RuntimeException ex) {
+            for (Clip clip : pool)
+                if (clip != null)
+                    clip.close();
+            throw ex;
+        }
+    }
+
+    // play a sound from the start, using the next clip of its pool
+    // no file is touched here, so this is safe to call on the event thread
+    public void play(String name)
+    {
+        Clip[] pool = pools.get(name);
+        if (pool == null)
+        {
+            // a lazy sound is loaded the first time it is asked for, and played as soon as it is ready
+            if (lazy.contains(name) && requested.add(name))
+                Assets.LOADER.execute(() -> {
+                    load(name);
+                    if (pools.containsKey(name))
+                        play(name);
+                });
+            return;
+        }
+        if (playingVoices() >= MAX_VOICES)
+            return;
+
+        // take turns between the clips of the pool, if the oldest one is still going it gets cut off
+        int voice = nextVoice.get(name).getAndUpdate(next -> (next + 1) % pool.length);
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        Clip clip = pool[voice];
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+        if (Metrics.ENABLED)
+            Metrics.SOUND_PLAY.record(System.nanoTime() - start);
+    }
+
+    // count the clips that are currently playing across every sound
+    private int playingVoices()
+    {
+        int playing = 0;
+        for (Clip[] pool : pools.values())
+            for (Clip clip : pool)
+                if (clip.isRunning())
+                    playing++;
+        return playing;
+    }
+}
@@ -0,0 +1,257 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class SpriteCache
+{
+    // ids of every tile sprite, used as indexes into the cache
+    public static final int UNREVEALED = 0;
+    public static final int REVEALED = 1;
+    public static final int FLAG = 2;
+    public static final int WRONG_FLAG = 3;
+    public static final int MINE = 4;
+    public static final int MINE_CLICKED = 5;
+    public static final int SHIELD = 6;
+    // number tiles 1-8 come right after, so the sprite for a number n is NUMBER + n - 1
+    public static final int NUMBER = 7;
+    // number of sprite ids
+    public static final int COUNT = NUMBER + 8;
+
+    // file names for each sprite id, in the same order as the ids above
+    private static final String[] FILES = {
+        "unrevealed_tile.png",
+        "revealed_tile.png",
+        "flag_icon.png",
+        "wrong_flag_icon.png",
+        "mine_icon.png",
+        "mine_clicked_icon.png",
+        "shield_icon.png",
+        "number_1.png",
+        "number_2.png",
+        "number_3.png",
+        "number_4.png",
+        "number_5.png",
+        "number_6.png",
+        "number_7.png",
+        "number_8.png"
+    };
+
+    // what a sprite shows when its file is missing: a plain tile, with these letters on it
+    private static final String[] PLACEHOLDERS = {"", "", "F", "X", "*", "*", "S", "1", "2", "3", "4", "5", "6", "7", "8"};
+
+    // icons as decoded, each one read once on the asset loader threads
+    // started when the cache is created, except for the lazy ones, which are started the first time they are asked for
+    // shared with every cache made by withOwnSize, so is also the lock for starting them
+    private CompletableFuture<BufferedImage>[] originals;
+    // every icon scaled to the current tile size, each scaled the first time it is needed at that size
+    private ImageIcon[] scaled = new ImageIcon[FILES.length];
+    private int scaledWidth = -1;
+    private int scaledHeight = -1;
+    // the average colour of every sprite, stands in for the icon when tiles are too small to show it
+    private Color[] colours;
+
+    static
+    {
+        // decode straight from memory, by default ImageIO copies every stream it reads from a URL into a temporary file first
+        ImageIO.setUseCache(false);
+    }
+
+    // default
+    // the icons are decoded in parallel in the background, so the window can be built while they load
+    public SpriteCache()
+    {
+        originals = newFutures();
+        colours = new Color[FILES.length];
+        for (int sprite = 0; sprite < FILES.length; sprite++)
+            if (!Assets.isLazy(path(sprite)))
+                original(sprite);
+    }
+
+    private SpriteCache(SpriteCache shared)
+    {
+        originals = shared.originals;
+        colours = shared.colours;
+    }
+
+    // a cache for another window, drawing the same decoded icons but scaling them for its own tile size
+    // only one scaled size is kept, two windows with their tiles at different sizes sharing one cache would rescale every icon on every repaint
+    public SpriteCache withOwnSize() {
+        return new SpriteCache(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<BufferedImage>[] newFutures() {
+        return (CompletableFuture<BufferedImage>[]) new CompletableFuture<?>[FILES.length];
+    }
+
+    private static String path(int sprite) {
+        return "icons/" + FILES[sprite];
+    }
+
+    // the decoded icon, started loading now if it hasn't been yet
+    private CompletableFuture<BufferedImage> original(int sprite)
+    {
+        synchronized (originals)
+        {
+            if (originals[sprite] == null)
+                originals[sprite] = CompletableFuture.supplyAsync(() -> decode(sprite), Assets.LOADER);
+            return originals[sprite];
+        }
+    }
+
+    // read the icon's file, or draw a stand-in for it if it can't be read
+    private static BufferedImage decode(int sprite)
+    {
+        URL url = Assets.find(path(sprite));
+        if (url == null)
+        {
+            Assets.missing(path(sprite), "not found");
+            return placeholder(sprite);
+        }
+        try {
+            BufferedImage image = ImageIO.read(url);
+            if (image != null)
+                return image;
+            Assets.missing(path(sprite), "is not an image");
+        }
+        catch (IOException ex) {
+            Assets.missing(path(sprite), ex.getMessage());
+        }
+        return placeholder(sprite);
+    }
+
+    // a plain tile with a letter for the sprite, so the game stays playable without its icons
+    private static BufferedImage placeholder(int sprite)
+    {
+        int size = 64;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(sprite == UNREVEALED ? Color.GRAY : Color.LIGHT_GRAY);
+        graphics.fillRect(0, 0, size, size);
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.drawRect(0, 0, size - 1, size - 1);
+        graphics.setColor(sprite == MINE_CLICKED || sprite == WRONG_FLAG ? Color.RED : Color.BLACK);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, size / 2));
+        FontMetrics font = graphics.getFontMetrics();
+        graphics.drawString(PLACEHOLDERS[sprite], (size - font.stringWidth(PLACEHOLDERS[sprite])) / 2, (size - font.getHeight()) / 2 + font.getAscent());
+        graphics.dispose();
+        return image;
+    }
+
+    // get a sprite scaled to the given tile size
+    // tiles that haven't been laid out yet have no size, those just get the unscaled icon
+    // an icon still being decoded is waited for, since it was started at startup that wait is short if there is one at all
+    public ImageIcon get(int sprite, int width, int height)
+    {
+        if (width <= 0 || height <= 0)
+            return new ImageIcon(original(sprite).join());
+
+        if (width != scaledWidth || height != scaledHeight)
+        {
+            Arrays.fill(scaled, null);
+            scaledWidth = width;
+            scaledHeight = height;
+        }
+        if (scaled[sprite] == null)
+        {
+            if (Metrics.ENABLED)
+                Metrics.ICON_MISSES.increment();
+            scaled[sprite] = scale(sprite, width, height);
+        }
+        else if (Metrics.ENABLED)
+            Metrics.ICON_HITS.increment();
+        return scaled[sprite];
+    }
+
+    // the sprite's average colour, worked out once from the original icon
+    public Color getColour(int sprite)
+    {
+        if (colours[sprite] != null)
+            return colours[sprite];
+
+        BufferedImage image = original(sprite).join();
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        // transparent pixels count for nothing, so a sprite with a see-through border gets the colour of what is drawn
+        // the symbols (numbers, flags, mines) are drawn on a plain tile, averaged with it they would all come out the same grey,
+        // so for those only the pixels unlike the most common colour, the tile behind the symbol, are averaged
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int background = mostCommon(pixels);
+        long[] all = new long[4];
+        long[] symbol = new long[4];
+        for (int argb : pixels)
+        {
+            add(all, argb);
+            if (distance(argb, background) > 48)
+                add(symbol, argb);
+        }
+        long[] sum = sprite != UNREVEALED && sprite != REVEALED && symbol[3] > 0 ? symbol : all;
+        if (sum[3] == 0)
+            return colours[sprite] = Color.GRAY;
+        return colours[sprite] = new Color((int) (sum[0] / sum[3]), (int) (sum[1] / sum[3]), (int) (sum[2] / sum[3]));
+    }
+
+    private static int mostCommon(int[] pixels)
+    {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int best = pixels[0];
+        for (int argb : pixels)
+            if (counts.merge(argb, 1, Integer::sum) > counts.get(best))
+                best = argb;
+        return best;
+    }
+
+    // add a pixel to red, green and blue totals weighted by its alpha, with the total weight last
+    private static void add(long[] sum, int argb)
+    {
+        int alpha = argb >>> 24;
+        sum[0] += alpha * (argb >> 16 & 0xFF);
+        sum[1] += alpha * (argb >> 8 & 0xFF);
+        sum[2] += alpha * (argb & 0xFF);
+        sum[3] += alpha;
+    }
+
+    private static int distance(int a, int b) {
+        return Math.abs((a >> 16 & 0xFF) - (b >> 16 & 0xFF)) + Math.abs((a >> 8 & 0xFF) - (b >> 8 & 0xFF)) + Math.abs((a & 0xFF) - (b & 0xFF));
+    }
+
+    // scale the sprite once for the tile size and draw it into its own image
+    // this way the expensive smooth scaling happens once per zoom level instead of once per tile update,
+    // and only for the sprites actually on screen
+    private ImageIcon scale(int sprite, int width, int height)
+    {
+        MinesweeperEvents.IconScale event = null;
+        long start = 0;
+        if (Metrics.ENABLED)
+        {
+            event = new MinesweeperEvents.IconScale();
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        Image smooth = original(sprite).join().getScaledInstance(width, height, Image.SCALE_SMOOTH);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        // ImageIcon waits for the scaled image to finish loading, so it can be drawn right away
+        graphics.drawImage(new ImageIcon(smooth).getImage(), 0, 0, null);
+        graphics.dispose();
+
+        if (Metrics.ENABLED)
+        {
+            Metrics.ICON_SCALE.record(System.nanoTime() - start);
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+        return new ImageIcon(image);
+    }
+}
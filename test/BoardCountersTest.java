@@ -0,0 +1,132 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the board keeps running totals of revealed safe tiles and flags so the win check doesn't scan the board
+// these play random games, practice mode so moves get undone and redone too, and recount the board after every move
+public class BoardCountersTest
+{
+    private static final int[][] BOARDS = {{5, 5, 5}, {10, 10, 20}, {15, 15, 45}, {8, 30, 60}, {40, 40, 300}};
+    private static final int GAMES = 40;
+    private static final int MOVES = 400;
+
+    @Test
+    public void countersMatchRecountOnRandomPlay()
+    {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int[] size : BOARDS)
+        {
+            MinesweeperGame game = new MinesweeperGame(size[0], size[1], size[2]);
+            game.setPractice(true);
+            for (int i = 0; i < GAMES; i++)
+            {
+                game.newGame(size[0], size[1], size[2]);
+                game.setNextSeed(random.nextLong());
+                for (int move = 0; move < MOVES; move++)
+                {
+                    String played = play(game, random);
+                    assertCounters(game.getBoard(), "game " + i + " move " + move + " " + played + " on " + size[0] + "x" + size[1]);
+                    // a finished game is taken back a move and played on
+                    if (game.isOver())
+                    {
+                        if (!game.undo())
+                            break;
+                        assertCounters(game.getBoard(), "game " + i + " move " + move + " undo of the end");
+                    }
+                }
+            }
+        }
+    }
+
+    // one random move: a reveal, a chord, a flag on a mine or any tile, an undo or a redo
+    // returns what was played, for the failure message
+    private static String play(MinesweeperGame game, SplittableRandom random)
+    {
+        MinesweeperBoard board = game.getBoard();
+        int row = random.nextInt(board.getRows());
+        int column = random.nextInt(board.getColumns());
+        int kind = random.nextInt(10);
+        switch (kind)
+        {
+            case 0:
+            case 1:
+            case 2:
+                game.reveal(row, column);
+                return "reveal " + row + "," + column;
+            case 3:
+            case 4:
+            {
+                // chord a revealed number, found by walking on from the random tile
+                int cell = find(board, row * board.getColumns() + column, true);
+                if (cell < 0)
+                    return "no chord";
+                game.chord(cell / board.getColumns(), cell % board.getColumns());
+                return "chord " + cell;
+            }
+            case 5:
+            case 6:
+            {
+                // flag a hidden mine, so chords go off and the flagged mine total moves
+                int cell = find(board, row * board.getColumns() + column, false);
+                if (cell < 0)
+                    return "no flag";
+                game.flag(cell / board.getColumns(), cell % board.getColumns());
+                return "flag mine " + cell;
+            }
+            case 7:
+                game.flag(row, column);
+                return "flag " + row + "," + column;
+            case 8:
+                game.undo();
+                return "undo";
+            default:
+                game.redo();
+                return "redo";
+        }
+    }
+
+    // the first tile from the start on, wrapping around, that is a revealed number (chord) or a hidden mine (otherwise)
+    private static int find(MinesweeperBoard board, int start, boolean chord)
+    {
+        int tiles = board.getRows() * board.getColumns();
+        for (int i = 0; i < tiles; i++)
+        {
+            int cell = (start + i) % tiles;
+            int row = cell / board.getColumns();
+            int column = cell % board.getColumns();
+            boolean match = chord
+                ? board.isRevealed(row, column) && !board.isMine(row, column) && board.getMineCount(row, column) > 0
+                : !board.isRevealed(row, column) && board.isMine(row, column);
+            if (match)
+                return cell;
+        }
+        return -1;
+    }
+
+    private static void assertCounters(MinesweeperBoard board, String where)
+    {
+        int revealedSafe = 0, flagged = 0, flaggedMines = 0;
+        for (int row = 0; row < board.getRows(); row++)
+        {
+            for (int column = 0; column < board.getColumns(); column++)
+            {
+                boolean mine = board.isMine(row, column);
+                if (board.isRevealed(row, column) && !mine)
+                    revealedSafe++;
+                if (board.isFlagged(row, column))
+                {
+                    flagged++;
+                    if (mine)
+                        flaggedMines++;
+                }
+            }
+        }
+        assertEquals(revealedSafe, board.getRevealedSafeCells(), "revealed safe tiles after " + where);
+        assertEquals(flagged, board.getFlaggedCells(), "flagged tiles after " + where);
+        assertEquals(flaggedMines, board.getFlaggedMines(), "flagged mines after " + where);
+        boolean cleared = revealedSafe == board.getRows() * board.getColumns() - board.getMines() || flaggedMines == board.getMines();
+        assertEquals(cleared, board.isCleared(), "win check after " + where);
+    }
+}
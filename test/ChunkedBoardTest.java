@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a reveal that hits its limit leaves the rest of the opening as the frontier, carrying on from it has to end up
+// with the same tiles revealed as one reveal without a limit, and no revealed empty tile left next to a hidden one
+public class ChunkedBoardTest
+{
+    private static final int WORLDS = 25;
+    // far enough around the start to hold any opening at the lowest density
+    private static final int REACH = 300;
+
+    @Test
+    public void cappedRevealCarriesOnFromItsFrontier()
+    {
+        int capped = 0;
+        for (long seed = 1; seed <= WORLDS; seed++)
+        {
+            ChunkedBoard whole = new ChunkedBoard(seed, ChunkedBoard.MIN_DENSITY);
+            whole.reveal(0, 0);
+            assertFalse(whole.hasFrontier(), "seed " + seed);
+
+            ChunkedBoard board = new ChunkedBoard(seed, ChunkedBoard.MIN_DENSITY);
+            board.setMaxReveal(64);
+            long revealed = board.reveal(0, 0);
+            if (board.hasFrontier())
+                capped++;
+            while (board.hasFrontier())
+            {
+                long before = board.getRevealedSafeCells();
+                revealed += board.revealFrontier();
+                assertTrue(board.getRevealedSafeCells() > before || !board.hasFrontier(), "seed " + seed + " made no progress");
+            }
+
+            assertEquals(whole.getRevealedSafeCells(), board.getRevealedSafeCells(), "seed " + seed);
+            assertTrue(revealed >= board.getRevealedSafeCells(), "seed " + seed);
+            for (int row = -REACH; row <= REACH; row++)
+            {
+                for (int column = -REACH; column <= REACH; column++)
+                {
+                    assertEquals(whole.isRevealed(row, column), board.isRevealed(row, column), "seed " + seed + " tile " + row + "," + column);
+                    if (board.isRevealed(row, column) && board.getMineCount(row, column) == 0)
+                        for (int newRow = row - 1; newRow <= row + 1; newRow++)
+                            for (int newColumn = column - 1; newColumn <= column + 1; newColumn++)
+                                assertTrue(board.isRevealed(newRow, newColumn), "seed " + seed + " hidden next to " + row + "," + column);
+                }
+            }
+        }
+        assertTrue(capped > 0, "no reveal went over the limit");
+    }
+}
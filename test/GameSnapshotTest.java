@@ -0,0 +1,182 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// saving a game and loading it back has to give the same game, and a file that doesn't hold a game a player could have got to
+// has to be refused rather than loaded
+public class GameSnapshotTest
+{
+    // where the header fields are in a version 2 file, see GameSnapshot
+    private static final int MINES_AT = 14;
+    private static final int FLAGS_AT = 26;
+    private static final int SHIELDS_AT = 30;
+    private static final int FIRST_CLICK_AT = 34;
+    private static final int TILES_AT = 45;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void savedGamesLoadTheSame() throws IOException
+    {
+        SplittableRandom random = new SplittableRandom(5);
+        int[][] sizes = {{5, 5, 5}, {10, 10, 20}, {16, 30, 99}, {200, 120, 3000}};
+        for (int[] size : sizes)
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                MinesweeperGame game = playedGame(size[0], size[1], size[2], random.nextInt(60), random);
+                long elapsed = random.nextLong(1L << 40);
+                Path file = folder.resolve("game.sav");
+                GameSnapshot.save(file, game, elapsed);
+                GameSnapshot snapshot = GameSnapshot.load(file);
+                assertSameGame(game, snapshot.getGame());
+                assertEquals(elapsed, snapshot.getElapsedNanos());
+            }
+        }
+    }
+
+    @Test
+    public void gameSavedBeforeTheFirstClickLoads() throws IOException
+    {
+        MinesweeperGame game = new MinesweeperGame(9, 9, 10);
+        game.flag(3, 3);
+        Path file = folder.resolve("game.sav");
+        GameSnapshot.save(file, game, 0);
+        MinesweeperGame loaded = GameSnapshot.load(file).getGame();
+        assertSameGame(game, loaded);
+        assertEquals(-1, loaded.getBoard().get3BV());
+    }
+
+    @Test
+    public void tooManyMinesAreRefused() throws IOException
+    {
+        Path file = savedGame();
+        patchInt(file, MINES_AT, 9 * 9);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+        patchInt(file, MINES_AT, 1_000_000);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+        patchInt(file, MINES_AT, -1);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+    }
+
+    @Test
+    public void minesThatDontMatchTheTilesAreRefused() throws IOException
+    {
+        Path file = savedGame();
+        patchInt(file, MINES_AT, 11);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+
+        // a game still waiting for its first click has no mines on its tiles yet
+        Path started = savedGame();
+        byte[] bytes = Files.readAllBytes(started);
+        bytes[FIRST_CLICK_AT] = 1;
+        Files.write(started, bytes);
+        assertThrows(IOException.class, () -> GameSnapshot.load(started));
+    }
+
+    @Test
+    public void countersThatDontMatchTheTilesAreRefused() throws IOException
+    {
+        Path file = savedGame();
+        patchInt(file, FLAGS_AT, 3);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+
+        Path shields = savedGame();
+        patchInt(shields, SHIELDS_AT, 1);
+        assertThrows(IOException.class, () -> GameSnapshot.load(shields));
+        patchInt(shields, SHIELDS_AT, -5);
+        assertThrows(IOException.class, () -> GameSnapshot.load(shields));
+    }
+
+    @Test
+    public void cutShortOrForeignFilesAreRefused() throws IOException
+    {
+        Path file = savedGame();
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[] {0, 3, 20, TILES_AT - 1, TILES_AT, bytes.length - 1})
+        {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> GameSnapshot.load(file), "file cut to " + length + " bytes");
+        }
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> GameSnapshot.load(file));
+    }
+
+    // a 9x9 game with 10 mines, a reveal and a flag in, saved to a file
+    private Path savedGame() throws IOException
+    {
+        MinesweeperGame game = new MinesweeperGame(9, 9, 10);
+        game.setNextSeed(42);
+        game.reveal(4, 4);
+        MinesweeperBoard board = game.getBoard();
+        for (int cell = 0; cell < 81; cell++)
+        {
+            if (!board.isRevealed(cell / 9, cell % 9))
+            {
+                game.flag(cell / 9, cell % 9);
+                break;
+            }
+        }
+        Path file = Files.createTempFile(folder, "game", ".sav");
+        GameSnapshot.save(file, game, 1234);
+        // the untouched file loads, so whatever the tests break in it is what gets it refused
+        GameSnapshot.load(file);
+        return file;
+    }
+
+    private static void patchInt(Path file, int offset, int value) throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Files.write(file, bytes);
+    }
+
+    // a game with some random moves played, the same ones for the same random numbers
+    static MinesweeperGame playedGame(int rows, int columns, int mines, int moves, SplittableRandom random)
+    {
+        MinesweeperGame game = new MinesweeperGame(rows, columns, mines);
+        game.setNextSeed(random.nextLong());
+        for (int move = 0; move < moves && !game.isOver(); move++)
+        {
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns);
+            if (random.nextInt(4) == 0)
+                game.flag(row, column);
+            else if (game.getBoard().isRevealed(row, column))
+                game.chord(row, column);
+            else
+                game.reveal(row, column);
+        }
+        return game;
+    }
+
+    static void assertSameGame(MinesweeperGame expected, MinesweeperGame actual)
+    {
+        MinesweeperBoard board = expected.getBoard();
+        MinesweeperBoard other = actual.getBoard();
+        assertEquals(board.getRows(), other.getRows());
+        assertEquals(board.getColumns(), other.getColumns());
+        assertEquals(board.getMines(), other.getMines());
+        assertEquals(board.getCells(), other.getCells(), "tiles");
+        assertEquals(expected.getFlagsAvailable(), actual.getFlagsAvailable(), "flags left");
+        assertEquals(expected.getShieldsAvailable(), actual.getShieldsAvailable(), "shields left");
+        assertEquals(expected.isFirstClick(), actual.isFirstClick(), "first click");
+        assertEquals(expected.isOver(), actual.isOver(), "game over");
+        assertEquals(board.getSeed(), other.getSeed(), "seed");
+        assertEquals(board.getRevealedSafeCells(), other.getRevealedSafeCells(), "revealed safe tiles");
+        assertEquals(board.getFlaggedCells(), other.getFlaggedCells(), "flagged tiles");
+        assertEquals(board.getFlaggedMines(), other.getFlaggedMines(), "flagged mines");
+        assertEquals(board.get3BV(), other.get3BV(), "3BV");
+    }
+}
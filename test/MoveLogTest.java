@@ -0,0 +1,249 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// replaying a game's move log has to end up at the same game, a log cut short has to replay up to its last whole move,
+// and a damaged log has to be reported as an IOException rather than crash the replay
+// logs are only created by a game's first move, and only the newest ones are kept
+public class MoveLogTest
+{
+    // header of a log of a board small enough that its sizes each take one byte: magic, version, rows, columns, mines
+    private static final int HEADER_BYTES = 4 + 1 + 3;
+
+    @TempDir
+    Path folder;
+
+    // a move played in a test: the tile and one of the MoveLog actions
+    private static class Move
+    {
+        final int row;
+        final int column;
+        final int action;
+
+        Move(int row, int column, int action)
+        {
+            this.row = row;
+            this.column = column;
+            this.action = action;
+        }
+
+        void play(MinesweeperGame game)
+        {
+            if (action == MoveLog.REVEAL)
+                game.reveal(row, column);
+            else if (action == MoveLog.CHORD)
+                game.chord(row, column);
+            else
+                game.flag(row, column);
+        }
+    }
+
+    @Test
+    public void replayEndsAtTheSameGame() throws IOException, InterruptedException
+    {
+        SplittableRandom random = new SplittableRandom(11);
+        int[][] sizes = {{5, 5, 5}, {10, 10, 20}, {16, 30, 99}, {90, 60, 700}};
+        for (int[] size : sizes)
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                Path file = folder.resolve("game.mslog");
+                long seed = random.nextLong();
+                List<Move> moves = new ArrayList<>();
+                MinesweeperGame game = record(file, size[0], size[1], size[2], seed, random, moves);
+                try (MoveLogReader reader = new MoveLogReader(file))
+                {
+                    GameSnapshotTest.assertSameGame(game, reader.replay(0, null));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void logCutShortReplaysUpToItsLastWholeMove() throws IOException, InterruptedException
+    {
+        SplittableRandom random = new SplittableRandom(12);
+        Path file = folder.resolve("game.mslog");
+        long seed = 77;
+        List<Move> moves = new ArrayList<>();
+        record(file, 10, 10, 15, seed, random, moves);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path cut = folder.resolve("cut.mslog");
+        for (int length = 0; length < bytes.length; length++)
+        {
+            Files.write(cut, Arrays.copyOf(bytes, length));
+            if (length < HEADER_BYTES)
+            {
+                assertThrows(IOException.class, () -> new MoveLogReader(cut), "log cut to " + length + " bytes");
+                continue;
+            }
+            int[] played = new int[1];
+            MinesweeperGame replayed;
+            try (MoveLogReader reader = new MoveLogReader(cut))
+            {
+                replayed = reader.replay(0, (game, row, column, action, outcome) -> played[0]++);
+            }
+
+            // the same game played up to the move the log was cut after
+            MinesweeperGame expected = new MinesweeperGame(10, 10, 15);
+            expected.setNextSeed(seed);
+            for (int i = 0; i < played[0]; i++)
+                moves.get(i).play(expected);
+            GameSnapshotTest.assertSameGame(expected, replayed);
+        }
+    }
+
+    @Test
+    public void damagedLogIsReportedAsAnIOException() throws IOException
+    {
+        SplittableRandom random = new SplittableRandom(13);
+        Path file = folder.resolve("game.mslog");
+        record(file, 12, 12, 20, 99, random, new ArrayList<>());
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path damaged = folder.resolve("damaged.mslog");
+        for (int trial = 0; trial < 2000; trial++)
+        {
+            byte[] copy = bytes.clone();
+            for (int flips = 1 + random.nextInt(3); flips > 0; flips--)
+                copy[random.nextInt(copy.length)] = (byte) random.nextInt(256);
+            Files.write(damaged, copy);
+            try (MoveLogReader reader = new MoveLogReader(damaged))
+            {
+                reader.replay(0, null);
+            }
+            catch (IOException ex) {
+                // refused, which is fine
+            }
+            catch (RuntimeException | InterruptedException ex) {
+                fail("damaged log " + Arrays.toString(copy) + " threw " + ex);
+            }
+        }
+    }
+
+    @Test
+    public void headerOfABoardThatCantBePlayedIsRefused() throws IOException
+    {
+        Path file = folder.resolve("game.mslog");
+        header(file, 10, 10, 100);
+        assertThrows(IOException.class, () -> new MoveLogReader(file));
+        header(file, 100_000, 100_000, 10);
+        assertThrows(IOException.class, () -> new MoveLogReader(file));
+        header(file, 0, 10, 0);
+        assertThrows(IOException.class, () -> new MoveLogReader(file));
+    }
+
+    @Test
+    public void logIsOnlyCreatedByTheFirstMove()
+    {
+        Path file = folder.resolve("logs").resolve("game.mslog");
+        new MoveLog(file, 10, 10, 10).close();
+        assertFalse(Files.exists(file));
+
+        MoveLog log = new MoveLog(file, 10, 10, 10);
+        log.move(0, MoveLog.FLAG);
+        log.close();
+        assertTrue(log.isWritten());
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    public void gamesKeepOnlyTheNewestLogs() throws IOException, InterruptedException
+    {
+        // older logs than any game started now, more than are kept
+        for (int i = 0; i < 120; i++)
+            Files.createFile(folder.resolve(String.format("game-%013d.mslog", i)));
+
+        BlockingQueue<GameActor.ChangeBatch> batches = new LinkedBlockingQueue<>();
+        GameActor actor = new GameActor(5, 5, 3, folder, new GameActor.Listener()
+        {
+            @Override
+            public void applied(GameActor.ChangeBatch batch) {
+                batches.add(batch);
+            }
+
+            @Override
+            public void failed(String message) {
+                fail(message);
+            }
+        });
+
+        // a game that was never played leaves no log and deletes nothing
+        actor.restart(5, 5, 3, null);
+        assertTrue(batches.poll(10, TimeUnit.SECONDS).newGame);
+        assertEquals(120, logs().size());
+
+        actor.click(2, 2);
+        assertEquals(MinesweeperGame.Outcome.REVEALED, batches.poll(10, TimeUnit.SECONDS).outcome);
+        actor.restart(5, 5, 3, null);
+        assertTrue(batches.poll(10, TimeUnit.SECONDS).newGame);
+        List<String> logs = logs();
+        assertEquals(100, logs.size());
+        assertFalse(logs.contains(String.format("game-%013d.mslog", 20)));
+        assertTrue(logs.contains(String.format("game-%013d.mslog", 21)));
+    }
+
+    // names of the logs in the folder
+    private List<String> logs() throws IOException
+    {
+        try (Stream<Path> files = Files.list(folder))
+        {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    // a log of a game with a single move, so its header gets written
+    private static void header(Path file, int rows, int columns, int mines)
+    {
+        try (MoveLog log = new MoveLog(file, rows, columns, mines))
+        {
+            log.move(0, MoveLog.FLAG);
+        }
+    }
+
+    // play a random game from the seed with its moves logged to the file, the moves played are added to the list
+    private static MinesweeperGame record(Path file, int rows, int columns, int mines, long seed, SplittableRandom random, List<Move> moves)
+        throws IOException
+    {
+        MinesweeperGame game = new MinesweeperGame(rows, columns, mines);
+        game.setNextSeed(seed);
+        try (MoveLog log = new MoveLog(file, rows, columns, mines))
+        {
+            game.setMoveLog(log);
+            for (int i = 0; i < 80 && !game.isOver(); i++)
+            {
+                int row = random.nextInt(rows);
+                int column = random.nextInt(columns);
+                int action;
+                if (random.nextInt(4) == 0)
+                    action = MoveLog.FLAG;
+                else
+                    action = game.getBoard().isRevealed(row, column) ? MoveLog.CHORD : MoveLog.REVEAL;
+                Move move = new Move(row, column, action);
+                move.play(game);
+                moves.add(move);
+            }
+            game.setMoveLog(null);
+        }
+        return game;
+    }
+}
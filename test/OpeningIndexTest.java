@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the openings are indexed when the mines are placed, so a click on an untouched opening reveals it from the index
+// and the 3BV is counted from it, these check both against a plain flood fill on random boards
+// flags and reveals are scattered over the board first, so clicks land on touched openings as well as untouched ones
+public class OpeningIndexTest
+{
+    private static final int[][] SIZES = {{1, 1}, {3, 3}, {9, 9}, {16, 30}, {30, 16}, {60, 60}, {7, 120}};
+    private static final double[] DENSITIES = {0, 0.02, 0.08, 0.15, 0.25, 0.4};
+    private static final int SEEDS = 12;
+    private static final int CLICKS = 60;
+
+    @Test
+    public void indexedRevealMatchesFloodFill()
+    {
+        SplittableRandom random = new SplittableRandom(24);
+        for (int[] size : SIZES)
+        {
+            for (double density : DENSITIES)
+            {
+                for (MinesweeperBoard.SafeZone safeZone : MinesweeperBoard.SafeZone.values())
+                {
+                    for (int i = 0; i < SEEDS; i++)
+                    {
+                        MinesweeperBoard board = board(size[0], size[1], density, safeZone, random);
+                        String where = size[0] + "x" + size[1] + " with " + board.getMines() + " mines, " + safeZone + ", game " + i;
+                        assertEquals(board.count3BV(), board.get3BV(), "3BV of " + where);
+
+                        for (int click = 0; click < CLICKS; click++)
+                        {
+                            int row = random.nextInt(size[0]);
+                            int column = random.nextInt(size[1]);
+                            boolean[] expected = revealed(board);
+                            int count = fill(board, expected, row, column);
+                            assertEquals(count, board.reveal(row, column), "tiles revealed by " + row + "," + column + " on " + where);
+                            assertRevealed(board, expected, "reveal of " + row + "," + column + " on " + where);
+                            // a flag taken off or put on touches the opening under it for the next clicks
+                            if (random.nextInt(4) == 0)
+                                flip(board, random);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // a board with its mines placed from a random seed and first click, with a few tiles flagged or revealed
+    // before the mines go down and after
+    private static MinesweeperBoard board(int rows, int columns, double density, MinesweeperBoard.SafeZone safeZone,
+                                          SplittableRandom random)
+    {
+        int safe = safeZone == MinesweeperBoard.SafeZone.AREA ? Math.min(9, rows * columns) : 1;
+        int mines = Math.min((int) (rows * columns * density), rows * columns - safe);
+        MinesweeperBoard board = new MinesweeperBoard(rows, columns, mines);
+        int flags = random.nextInt(3);
+        for (int i = 0; i < flags; i++)
+            flip(board, random);
+        board.placeMines(random.nextInt(rows), random.nextInt(columns), random.nextLong(), safeZone);
+        flags = random.nextInt(4);
+        for (int i = 0; i < flags; i++)
+            flip(board, random);
+        return board;
+    }
+
+    // put a flag on a hidden tile or take it off
+    private static void flip(MinesweeperBoard board, SplittableRandom random)
+    {
+        int row = random.nextInt(board.getRows());
+        int column = random.nextInt(board.getColumns());
+        if (!board.isRevealed(row, column))
+            board.setFlagged(row, column, !board.isFlagged(row, column));
+    }
+
+    private static boolean[] revealed(MinesweeperBoard board)
+    {
+        boolean[] revealed = new boolean[board.getRows() * board.getColumns()];
+        for (int row = 0; row < board.getRows(); row++)
+            for (int column = 0; column < board.getColumns(); column++)
+                revealed[row * board.getColumns() + column] = board.isRevealed(row, column);
+        return revealed;
+    }
+
+    // the tiles a click reveals, worked out tile by tile: the tile itself, and if it is empty every hidden unflagged
+    // tile around it, spreading on from the empty ones, returns how many were revealed
+    private static int fill(MinesweeperBoard board, boolean[] revealed, int row, int column)
+    {
+        int columns = board.getColumns();
+        if (revealed[row * columns + column] || board.isFlagged(row, column))
+            return 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        revealed[row * columns + column] = true;
+        queue.add(row * columns + column);
+        int count = 0;
+        while (!queue.isEmpty())
+        {
+            int cell = queue.poll();
+            count++;
+            int cellRow = cell / columns;
+            int cellColumn = cell % columns;
+            if (board.isMine(cellRow, cellColumn) || board.getMineCount(cellRow, cellColumn) > 0)
+                continue;
+            for (int newRow = cellRow - 1; newRow <= cellRow + 1; newRow++)
+            {
+                for (int newColumn = cellColumn - 1; newColumn <= cellColumn + 1; newColumn++)
+                {
+                    if (board.isInBounds(newRow, newColumn) && !revealed[newRow * columns + newColumn] && !board.isFlagged(newRow, newColumn))
+                    {
+                        revealed[newRow * columns + newColumn] = true;
+                        queue.add(newRow * columns + newColumn);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void assertRevealed(MinesweeperBoard board, boolean[] expected, String where)
+    {
+        for (int row = 0; row < board.getRows(); row++)
+            for (int column = 0; column < board.getColumns(); column++)
+                assertEquals(expected[row * board.getColumns() + column], board.isRevealed(row, column),
+                    "tile " + row + "," + column + " after " + where);
+    }
+}